@@ -18,27 +18,30 @@ package io.realm.realmloginkit.example;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.Toast;
 import android.widget.ToggleButton;
 
 import io.realm.realmloginkit.ActivityHelper;
 import io.realm.realmloginkit.LoginKit;
+import io.realm.realmloginkit.RetryPolicy;
 import io.realm.realmloginkit.util.Constants;
 import io.realm.realmloginkit.widget.RealmLogoView;
 
 public class ExampleActivity extends AppCompatActivity implements View.OnClickListener {
 
-    public static final double LOGO_RATIO = 0.7;
-
     private boolean isDarkMode;
     private ToggleButton lightButton;
     private ToggleButton darkButton;
     private RealmLogoView logo;
+    private final ActivityHelper.OnSuccess onLogInSuccess = new ActivityHelper.OnSuccess() {
+        @Override
+        public void onSuccess() {
+            Toast.makeText(ExampleActivity.this, "Success!", Toast.LENGTH_SHORT).show();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,12 +54,6 @@ public class ExampleActivity extends AppCompatActivity implements View.OnClickLi
         findViewById(R.id.log_in).setOnClickListener(this);
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        delayedResizeLogo();
-    }
-
     @Override
     public void onClick(View view) {
         final int viewId = view.getId();
@@ -78,25 +75,6 @@ public class ExampleActivity extends AppCompatActivity implements View.OnClickLi
         logo.setMonochromeLogo(isDarkMode);
     }
 
-    private void delayedResizeLogo() {
-        new Handler().postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                resizeLogo();
-            }
-        }, 100);
-    }
-
-    private void resizeLogo() {
-        final int width = getWindow().getDecorView().getWidth();
-        final int height = getWindow().getDecorView().getHeight();
-        final int minWidth = (int) (Math.min(width, height) * LOGO_RATIO);
-        ViewGroup.LayoutParams layoutParams = logo.getLayoutParams();
-        layoutParams.width = minWidth;
-        layoutParams.height = minWidth;
-        logo.setLayoutParams(layoutParams);
-    }
-
     private void initThemeButtons(boolean isDarkMode) {
         final ActionBar actionBar = getSupportActionBar();
         actionBar.setCustomView(R.layout.theme_toggles);
@@ -131,7 +109,9 @@ public class ExampleActivity extends AppCompatActivity implements View.OnClickLi
                 .setDarkMode(isDarkMode)
                 .setAppTitle("Example App")
                 .setServerUri("127.0.0.7", false)
-                .logIn();
+                .setResumeSession(true)
+                .setRetryPolicy(new RetryPolicy.Builder().setMaxAttempts(3).build())
+                .logIn(onLogInSuccess);
     }
 
     private void handleLightTheme() {
@@ -162,11 +142,6 @@ public class ExampleActivity extends AppCompatActivity implements View.OnClickLi
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        ActivityHelper.onActivityResult(requestCode, resultCode, data, new ActivityHelper.OnSuccess() {
-            @Override
-            public void onSuccess() {
-                Toast.makeText(ExampleActivity.this, "Success!", Toast.LENGTH_SHORT).show();
-            }
-        });
+        ActivityHelper.onActivityResult(requestCode, resultCode, data, onLogInSuccess);
     }
 }
@@ -19,6 +19,7 @@ package io.realm.realmloginkit.example;
 import android.app.Application;
 
 import io.realm.Realm;
+import io.realm.realmloginkit.LoginKit;
 
 public class ExampleApplication extends Application {
 
@@ -26,5 +27,6 @@ public class ExampleApplication extends Application {
     public void onCreate() {
         super.onCreate();
         Realm.init(this);
+        LoginKit.prewarm(this);
     }
 }
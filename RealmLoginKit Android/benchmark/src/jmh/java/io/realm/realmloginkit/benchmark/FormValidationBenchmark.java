@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.realm.realmloginkit.util.FormValidation;
+import io.realm.realmloginkit.util.FormValidator;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class FormValidationBenchmark {
+    // StringBuilder stands in for the Editable of an EditText.
+    private final StringBuilder serverUrl = new StringBuilder("realms://sync.example.com");
+    private final StringBuilder emailAddress = new StringBuilder("someone@example.com");
+    private final StringBuilder password = new StringBuilder("correct horse battery staple");
+    private final StringBuilder confirmPassword = new StringBuilder("correct horse battery staple");
+    private FormValidator logInValidator;
+    private FormValidator registerValidator;
+
+    @Setup
+    public void setUp() {
+        logInValidator = FormValidation.newLogInValidator();
+        registerValidator = FormValidation.newRegisterValidator();
+        registerForm();
+    }
+
+    // A full pass, as when a form is filled from remembered credentials.
+    @Benchmark
+    public boolean logInForm() {
+        logInValidator.onFieldChanged(FormValidation.FIELD_SERVER_URL, serverUrl);
+        logInValidator.onFieldChanged(FormValidation.FIELD_EMAIL_ADDRESS, emailAddress);
+        logInValidator.onFieldChanged(FormValidation.FIELD_PASSWORD, password);
+        return logInValidator.isValid();
+    }
+
+    @Benchmark
+    public boolean registerForm() {
+        registerValidator.onFieldChanged(FormValidation.FIELD_SERVER_URL, serverUrl);
+        registerValidator.onFieldChanged(FormValidation.FIELD_EMAIL_ADDRESS, emailAddress);
+        registerValidator.onFieldChanged(FormValidation.FIELD_PASSWORD, password);
+        registerValidator.onFieldChanged(FormValidation.FIELD_CONFIRM_PASSWORD, confirmPassword);
+        return registerValidator.isValid();
+    }
+
+    @Benchmark
+    public boolean registerFormKeystroke() {
+        // A keystroke in the email field only re-checks that field.
+        registerValidator.onFieldChanged(FormValidation.FIELD_EMAIL_ADDRESS, emailAddress);
+        return registerValidator.isValid();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.realm.realmloginkit.widget.LogoGeometry;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class LogoGeometryBenchmark {
+    private float[][] projected;
+
+    @Setup
+    public void setUp() {
+        projected = new float[LogoGeometry.FACE_COUNT][];
+        for (int face = 0; face < LogoGeometry.FACE_COUNT; face++) {
+            projected[face] = new float[LogoGeometry.getFaceLength(face)];
+        }
+    }
+
+    @Benchmark
+    public float[][] projectAllFaces() {
+        for (int face = 0; face < LogoGeometry.FACE_COUNT; face++) {
+            LogoGeometry.projectFace(face, 3, 3, 294, 294, projected[face]);
+        }
+        return projected;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.realm.realmloginkit.util.UriHelper;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class UriHelperBenchmark {
+    // More distinct inputs than the parser cache holds, so that every call is a cache miss.
+    private static final int DISTINCT_INPUTS = 256;
+
+    private String[] uris;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        uris = new String[DISTINCT_INPUTS];
+        for (int i = 0; i < DISTINCT_INPUTS; i++) {
+            uris[i] = "realms://user@sync" + i + ".example.com:9443/auth?region=" + i;
+        }
+    }
+
+    @Benchmark
+    public String repeatedInput() {
+        return UriHelper.getValidAuthUri("realms://sync.example.com:9443/auth");
+    }
+
+    @Benchmark
+    public String distinctInputs() {
+        index = (index + 1) % DISTINCT_INPUTS;
+        return UriHelper.getValidAuthUri(uris[index]);
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.loadtest;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.realm.ObjectServerError;
+import io.realm.SyncUser;
+import io.realm.realmloginkit.AuthErrorCategory;
+import io.realm.realmloginkit.EndpointSelector;
+import io.realm.realmloginkit.LoginKitMetrics;
+import io.realm.realmloginkit.LoginRequestManager;
+import io.realm.realmloginkit.Metrics;
+import io.realm.realmloginkit.RetryPolicy;
+import io.realm.realmloginkit.transport.AuthTransports;
+import io.realm.realmloginkit.util.FormValidation;
+import io.realm.realmloginkit.util.FormValidator;
+import io.realm.realmloginkit.util.UriHelper;
+
+/**
+ * Runs many concurrent logins and registrations against a set of {@link MockAuthServer}s and reports throughput and
+ * latency percentiles. Each operation takes the same steps as the login screen, on the main thread: the form is
+ * validated by a {@link FormValidator}, the server addresses are normalized with {@link UriHelper}, and the login is
+ * started with {@link LoginRequestManager} under a {@link RetryPolicy}. The manager picks the endpoint with
+ * {@link EndpointSelector}, fails over, retries and shares identical requests as it does in the app; only the
+ * transport is replaced by an {@link HttpAuthTransport}. Retries and failovers are counted through
+ * {@link LoginKitMetrics} and the {@link EndpointSelector.Listener}.
+ * <p>
+ * Arguments are given as {@code key=value}: {@code concurrency}, {@code operations}, {@code warmupOperations},
+ * {@code registerRatio}, {@code servers}, {@code latencyMs}, {@code jitterMs}, {@code errorRate},
+ * {@code maxAttempts}, {@code retryBaseDelayMs}, {@code retryMaxDelayMs} and {@code output}.
+ */
+public class AuthLoadTest {
+    private static final String PASSWORD = "password";
+    private static final int SEEDED_USERS = 100;
+
+    enum Outcome {
+        SUCCESS, REJECTED, SERVER_ERROR, IO_ERROR, UNEXPECTED_ERROR
+    }
+
+    interface Callback {
+        void onResult(Outcome outcome, long latencyNanos);
+    }
+
+    private final int concurrency;
+    private final int operations;
+    private final int warmupOperations;
+    private final double registerRatio;
+    private final int servers;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+    private final RetryPolicy retryPolicy;
+    private final File output;
+
+    // Everything below is only used on the main thread, like the login screen does.
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final FormValidator formValidator = FormValidation.newRegisterValidator();
+    private final Set<Integer> requestIds = new HashSet<>();
+    private int sharedRequests;
+    private int attempts;
+    private int failovers;
+    private int nextOperation;
+    private int endOperation;
+
+    AuthLoadTest(Map<String, String> args) {
+        concurrency = Integer.parseInt(get(args, "concurrency", "16"));
+        operations = Integer.parseInt(get(args, "operations", "2000"));
+        warmupOperations = Integer.parseInt(get(args, "warmupOperations", "500"));
+        registerRatio = Double.parseDouble(get(args, "registerRatio", "0.2"));
+        servers = Integer.parseInt(get(args, "servers", "2"));
+        latencyMs = Long.parseLong(get(args, "latencyMs", "20"));
+        jitterMs = Long.parseLong(get(args, "jitterMs", "10"));
+        errorRate = Double.parseDouble(get(args, "errorRate", "0.01"));
+        maxAttempts = Integer.parseInt(get(args, "maxAttempts", "3"));
+        retryBaseDelayMs = Long.parseLong(get(args, "retryBaseDelayMs", "50"));
+        retryMaxDelayMs = Long.parseLong(get(args, "retryMaxDelayMs", "1000"));
+        retryPolicy = new RetryPolicy.Builder()
+                .setMaxAttempts(maxAttempts)
+                .setDelayMs(retryBaseDelayMs, retryMaxDelayMs)
+                .build();
+        output = new File(get(args, "output", "build/reports/loadtest/loadtest-" + System.currentTimeMillis() + ".json"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new AuthLoadTest(options).run();
+    }
+
+    void run() throws Exception {
+        // Every server shares one account table, as the nodes behind a set of Object Server addresses would.
+        final List<MockAuthServer> authServers = new ArrayList<>(servers);
+        final List<String> serverUris = new ArrayList<>(servers);
+        for (int i = 0; i < servers; i++) {
+            final MockAuthServer server = i == 0
+                    ? new MockAuthServer(concurrency, latencyMs, jitterMs, errorRate)
+                    : new MockAuthServer(authServers.get(0), concurrency, latencyMs, jitterMs, errorRate);
+            authServers.add(server);
+            serverUris.add(server.getServerUri());
+        }
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            authServers.get(0).addUser(seededUsername(i), PASSWORD);
+        }
+        for (MockAuthServer server : authServers) {
+            server.start();
+        }
+        final HttpAuthTransport transport = new HttpAuthTransport(concurrency);
+        AuthTransports.setDefault(transport);
+        Metrics.setMetrics(new LoginKitMetrics() {
+            @Override
+            public void onPhaseCompleted(Phase phase, long durationNanos, AuthErrorCategory errorCategory) {
+                if (phase == Phase.AUTH_REQUEST) {
+                    attempts++;
+                }
+            }
+        });
+        EndpointSelector.setListener(new EndpointSelector.Listener() {
+            @Override
+            public void onEndpointSelected(String authUri, EndpointSelector.Reason reason, long latencyMs) {
+                if (reason == EndpointSelector.Reason.FAILOVER) {
+                    failovers++;
+                }
+            }
+        });
+
+        final long[] latencies = new long[operations];
+        final int[] outcomes = new int[Outcome.values().length];
+        final int[] recorded = new int[1];
+        final Callback callback = new Callback() {
+            @Override
+            public void onResult(Outcome outcome, long latencyNanos) {
+                outcomes[outcome.ordinal()]++;
+                latencies[recorded[0]++] = latencyNanos;
+            }
+        };
+
+        final long elapsedNanos;
+        try {
+            // Let connections open, the endpoints get probed and the JIT settle so the first requests do not skew the
+            // tail latencies.
+            runPhase(serverUris, 0, warmupOperations, new Callback() {
+                @Override
+                public void onResult(Outcome outcome, long latencyNanos) {
+                }
+            });
+            elapsedNanos = runPhase(serverUris, warmupOperations, operations, callback);
+        } finally {
+            EndpointSelector.setListener(null);
+            Metrics.setMetrics(null);
+            AuthTransports.setDefault(null);
+            transport.shutdown();
+            for (MockAuthServer server : authServers) {
+                server.stop();
+            }
+        }
+
+        // The phase's latch makes the results written on the main thread visible here.
+        final long[] sorted = Arrays.copyOf(latencies, recorded[0]);
+        Arrays.sort(sorted);
+        final String report = toJson(sorted, outcomes, elapsedNanos);
+        write(report);
+        System.out.println(report);
+        System.out.println("Results written to " + output.getAbsolutePath());
+    }
+
+    // Operations are numbered from firstOperation so that every registration uses a fresh username. Each finished
+    // operation starts the next one, so that concurrency logins are in flight until the phase runs out.
+    private long runPhase(final List<String> serverUris, final int firstOperation, final int count,
+            final Callback callback) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(count);
+        final long startedAt = System.nanoTime();
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                requestIds.clear();
+                sharedRequests = 0;
+                attempts = 0;
+                failovers = 0;
+                nextOperation = firstOperation;
+                endOperation = firstOperation + count;
+                for (int i = 0; i < concurrency; i++) {
+                    startOperation(serverUris, callback, done);
+                }
+            }
+        });
+        done.await();
+        return System.nanoTime() - startedAt;
+    }
+
+    private void startOperation(List<String> serverUris, Callback callback, CountDownLatch done) {
+        if (nextOperation >= endOperation) {
+            return;
+        }
+        final int operation = nextOperation++;
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final boolean isRegistration = random.nextDouble() < registerRatio;
+        final String username = isRegistration
+                ? "user-" + operation + "@loadtest.realm.io"
+                : seededUsername(random.nextInt(SEEDED_USERS));
+        final Operation result = new Operation(serverUris, callback, done);
+        try {
+            if (!isValidForm(serverUris.get(0), username, isRegistration)) {
+                result.finish(Outcome.REJECTED);
+                return;
+            }
+            final List<String> authUris = new ArrayList<>(serverUris.size());
+            for (String serverUri : serverUris) {
+                authUris.add(UriHelper.getValidAuthUri(serverUri));
+            }
+            final LoginRequestManager manager = LoginRequestManager.getInstance();
+            final int requestId = manager.logIn(authUris, username, PASSWORD, isRegistration, retryPolicy);
+            if (!requestIds.add(requestId)) {
+                sharedRequests++;
+            }
+            manager.attach(requestId, result);
+        } catch (RuntimeException e) {
+            // A bug in the code under test must show up in the report, not stall the phase.
+            e.printStackTrace();
+            result.finish(Outcome.UNEXPECTED_ERROR);
+        }
+    }
+
+    // Receives the result of one operation and starts the next one.
+    private final class Operation implements SyncUser.Callback {
+        private final List<String> serverUris;
+        private final Callback callback;
+        private final CountDownLatch done;
+        private final long startedAt = System.nanoTime();
+        private boolean isFinished;
+
+        private Operation(List<String> serverUris, Callback callback, CountDownLatch done) {
+            this.serverUris = serverUris;
+            this.callback = callback;
+            this.done = done;
+        }
+
+        @Override
+        public void onSuccess(SyncUser user) {
+            finish(Outcome.SUCCESS);
+        }
+
+        @Override
+        public void onError(ObjectServerError error) {
+            switch (AuthErrorCategory.of(error)) {
+                case CREDENTIALS:
+                    finish(Outcome.REJECTED);
+                    break;
+                case NETWORK:
+                    finish(Outcome.IO_ERROR);
+                    break;
+                default:
+                    finish(Outcome.SERVER_ERROR);
+                    break;
+            }
+        }
+
+        private void finish(Outcome outcome) {
+            if (isFinished) {
+                return;
+            }
+            isFinished = true;
+            callback.onResult(outcome, System.nanoTime() - startedAt);
+            done.countDown();
+            // Posted rather than called, so that operations that finish right away do not nest.
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    startOperation(serverUris, callback, done);
+                }
+            });
+        }
+    }
+
+    // Fills the form the way the login screen's text watchers do.
+    private boolean isValidForm(String serverUri, String username, boolean isRegistration) {
+        formValidator.setFieldEnabled(FormValidation.FIELD_CONFIRM_PASSWORD, isRegistration);
+        formValidator.onFieldChanged(FormValidation.FIELD_SERVER_URL, serverUri);
+        formValidator.onFieldChanged(FormValidation.FIELD_EMAIL_ADDRESS, username);
+        formValidator.onFieldChanged(FormValidation.FIELD_PASSWORD, PASSWORD);
+        formValidator.onFieldChanged(FormValidation.FIELD_CONFIRM_PASSWORD, PASSWORD);
+        return formValidator.isValid();
+    }
+
+    private String toJson(long[] sortedNanos, int[] outcomes, long elapsedNanos) {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+        json.append("  \"config\": {\"concurrency\": ").append(concurrency)
+                .append(", \"operations\": ").append(operations)
+                .append(", \"warmupOperations\": ").append(warmupOperations)
+                .append(", \"registerRatio\": ").append(registerRatio)
+                .append(", \"servers\": ").append(servers)
+                .append(", \"latencyMs\": ").append(latencyMs)
+                .append(", \"jitterMs\": ").append(jitterMs)
+                .append(", \"errorRate\": ").append(errorRate)
+                .append(", \"maxAttempts\": ").append(maxAttempts)
+                .append(", \"retryBaseDelayMs\": ").append(retryBaseDelayMs)
+                .append(", \"retryMaxDelayMs\": ").append(retryMaxDelayMs).append("},\n");
+        json.append("  \"durationMs\": ").append(format(elapsedNanos / 1e6)).append(",\n");
+        json.append("  \"throughputPerSecond\": ").append(format(sortedNanos.length / (elapsedNanos / 1e9))).append(",\n");
+        json.append("  \"latencyMs\": {\"p50\": ").append(format(percentile(sortedNanos, 50)))
+                .append(", \"p95\": ").append(format(percentile(sortedNanos, 95)))
+                .append(", \"p99\": ").append(format(percentile(sortedNanos, 99)))
+                .append(", \"max\": ").append(format(percentile(sortedNanos, 100))).append("},\n");
+        json.append("  \"outcomes\": {");
+        for (Outcome outcome : Outcome.values()) {
+            json.append(outcome.ordinal() == 0 ? "" : ", ")
+                    .append('"').append(outcome.name().toLowerCase(Locale.US)).append("\": ")
+                    .append(outcomes[outcome.ordinal()]);
+        }
+        json.append("},\n");
+        // Every request makes one attempt, plus one per failover and one per retry. Operations that joined an
+        // identical request in flight share its attempts.
+        json.append("  \"sharedRequests\": ").append(sharedRequests).append(",\n");
+        json.append("  \"retries\": ").append(attempts - requestIds.size() - failovers).append(",\n");
+        json.append("  \"failovers\": ").append(failovers).append("\n}");
+        return json.toString();
+    }
+
+    private void write(String report) throws IOException {
+        final File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+        try {
+            writer.write(report);
+            writer.write('\n');
+        } finally {
+            writer.close();
+        }
+    }
+
+    // Nearest-rank percentile, in milliseconds.
+    private static double percentile(long[] sortedNanos, int percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sortedNanos.length);
+        return sortedNanos[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.2f", value);
+    }
+
+    private static String seededUsername(int index) {
+        return "seeded-" + index + "@loadtest.realm.io";
+    }
+
+    private static String get(Map<String, String> args, String key, String defaultValue) {
+        final String value = args.get(key);
+        return value != null ? value : defaultValue;
+    }
+}
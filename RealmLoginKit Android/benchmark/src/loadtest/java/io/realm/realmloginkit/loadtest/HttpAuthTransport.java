@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.realm.realmloginkit.loadtest;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.realm.ErrorCode;
+import io.realm.ObjectServerError;
+import io.realm.RealmAsyncTask;
+import io.realm.SyncCredentials;
+import io.realm.SyncUser;
+import io.realm.realmloginkit.transport.AuthTransport;
+import io.realm.realmloginkit.transport.ConnectionStats;
+
+/**
+ * An {@link AuthTransport} that sends the login request of the password provider to a {@link MockAuthServer} over
+ * HTTP, with the body that {@code SyncUser.loginAsync()} builds from the {@link SyncCredentials}. Requests block one
+ * of a fixed number of threads, and results are delivered on the main thread. Server errors are reported as
+ * {@link ErrorCode#IO_EXCEPTION}, as they stand in for an overloaded node or a failing proxy.
+ * <p>
+ * {@link HttpURLConnection} keeps connections alive in its own pool and does not tell when it reuses one, so the
+ * {@link ConnectionStats} are unknown.
+ */
+public class HttpAuthTransport implements AuthTransport {
+    // Error codes as reported by the Realm Object Server.
+    private static final int CODE_INVALID_CREDENTIALS = 611;
+    private static final int CODE_UNKNOWN_ACCOUNT = 612;
+    private static final int CODE_EXISTING_ACCOUNT = 613;
+    private static final Pattern CODE_PATTERN = Pattern.compile("\"code\"\\s*:\\s*(\\d+)");
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor;
+
+    /**
+     * @param threads how many requests are sent at the same time.
+     */
+    public HttpAuthTransport(int threads) {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public RealmAsyncTask logIn(SyncCredentials credentials, final String authUri, final SyncUser.Callback callback) {
+        final String json = toJson(credentials);
+        final boolean[] isCancelled = new boolean[1];
+        final Future<?> future = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                ObjectServerError error;
+                try {
+                    error = post(authUri, json);
+                } catch (IOException e) {
+                    error = new ObjectServerError(ErrorCode.IO_EXCEPTION, e.toString());
+                }
+                final ObjectServerError result = error;
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isCancelled[0]) {
+                            return;
+                        }
+                        if (result == null) {
+                            callback.onSuccess(new SyncUser());
+                        } else {
+                            callback.onError(result);
+                        }
+                    }
+                });
+            }
+        });
+        // Called on the main thread, like the delivery, so the flag needs no synchronization.
+        return new RealmAsyncTask() {
+            @Override
+            public void cancel() {
+                isCancelled[0] = true;
+                future.cancel(true);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return isCancelled[0];
+            }
+        };
+    }
+
+    @Override
+    public ConnectionStats getConnectionStats() {
+        return ConnectionStats.UNKNOWN;
+    }
+
+    // Returns null if the login succeeded.
+    private static ObjectServerError post(String authUri, String json) throws IOException {
+        final byte[] body = json.getBytes("UTF-8");
+        final HttpURLConnection connection = (HttpURLConnection) new URL(authUri).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(30000);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Accept", "application/json");
+        final OutputStream out = connection.getOutputStream();
+        out.write(body);
+        out.close();
+
+        final int status = connection.getResponseCode();
+        // Read the whole body so the connection goes back into the keep-alive pool.
+        final String response = read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+        if (status == HttpURLConnection.HTTP_OK) {
+            return null;
+        }
+        if (status >= 500) {
+            return new ObjectServerError(ErrorCode.IO_EXCEPTION, "Server error " + status);
+        }
+        final Matcher code = CODE_PATTERN.matcher(response);
+        switch (code.find() ? Integer.parseInt(code.group(1)) : 0) {
+            case CODE_INVALID_CREDENTIALS:
+                return new ObjectServerError(ErrorCode.INVALID_CREDENTIALS, response);
+            case CODE_UNKNOWN_ACCOUNT:
+                return new ObjectServerError(ErrorCode.UNKNOWN_ACCOUNT, response);
+            case CODE_EXISTING_ACCOUNT:
+                return new ObjectServerError(ErrorCode.EXISTING_ACCOUNT, response);
+            default:
+                return new ObjectServerError(ErrorCode.UNKNOWN, response);
+        }
+    }
+
+    private static String toJson(SyncCredentials credentials) {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"provider\":\"").append(escape(credentials.getIdentityProvider()))
+                .append("\",\"data\":\"").append(escape(credentials.getUserIdentifier()))
+                .append("\",\"user_info\":{");
+        boolean isFirst = true;
+        for (Map.Entry<String, Object> entry : credentials.getUserInfo().entrySet()) {
+            json.append(isFirst ? "" : ",").append('"').append(escape(entry.getKey())).append("\":");
+            final Object value = entry.getValue();
+            if (value instanceof String) {
+                json.append('"').append(escape((String) value)).append('"');
+            } else {
+                json.append(value);
+            }
+            isFirst = false;
+        }
+        return json.append("},\"app_id\":\"\"}").toString();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[512];
+        int count;
+        try {
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
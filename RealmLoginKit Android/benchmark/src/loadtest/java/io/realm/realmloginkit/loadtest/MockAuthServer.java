@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A stand-in for the authentication endpoint of the Realm Object Server. It accepts the password provider requests
+ * sent by {@code SyncUser.loginAsync()}, keeps registered users in memory, and answers in the same JSON shapes as the
+ * real server. Every request is delayed by a configurable latency, and a configurable share of requests fails with a
+ * server error.
+ */
+public class MockAuthServer {
+    // Error codes as reported by the Realm Object Server and mapped to io.realm.ErrorCode.
+    private static final int CODE_INVALID_CREDENTIALS = 611;
+    private static final int CODE_UNKNOWN_ACCOUNT = 612;
+    private static final int CODE_EXISTING_ACCOUNT = 613;
+
+    private static final Pattern DATA_PATTERN = Pattern.compile("\"data\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile("\"password\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern REGISTER_PATTERN = Pattern.compile("\"register\"\\s*:\\s*true");
+
+    private final ConcurrentHashMap<String, String> passwords;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param threads how many requests are served at the same time.
+     * @param latencyMs the delay added to every request.
+     * @param jitterMs the maximum random delay added on top of {@code latencyMs}.
+     * @param errorRate the share of requests, between 0 and 1, answered with a 500 error.
+     */
+    public MockAuthServer(int threads, long latencyMs, long jitterMs, double errorRate) throws IOException {
+        this(new ConcurrentHashMap<String, String>(), threads, latencyMs, jitterMs, errorRate);
+    }
+
+    /**
+     * Creates a server that shares its accounts with {@code other}, like another node of the same Object Server.
+     */
+    public MockAuthServer(MockAuthServer other, int threads, long latencyMs, long jitterMs, double errorRate)
+            throws IOException {
+        this(other.passwords, threads, latencyMs, jitterMs, errorRate);
+    }
+
+    private MockAuthServer(ConcurrentHashMap<String, String> passwords, int threads, long latencyMs, long jitterMs,
+            double errorRate) throws IOException {
+        this.passwords = passwords;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        // Without TCP_NODELAY, delayed ACKs add about 40 ms to every keep-alive response and swamp the injected latency.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/auth", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    handleAuth(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the address as a user would type it into the server field.
+     */
+    public String getServerUri() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void addUser(String username, String password) {
+        passwords.put(username, password);
+    }
+
+    private void handleAuth(HttpExchange exchange) throws IOException {
+        final String body = read(exchange.getRequestBody());
+        final Random random = ThreadLocalRandom.current();
+        final long delayMs = latencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * jitterMs) : 0);
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, problem("Method not allowed", 405, 0));
+            return;
+        }
+        if (random.nextDouble() < errorRate) {
+            respond(exchange, 500, problem("Injected server error", 500, 0));
+            return;
+        }
+        final Matcher data = DATA_PATTERN.matcher(body);
+        final Matcher password = PASSWORD_PATTERN.matcher(body);
+        if (!data.find() || !password.find()) {
+            respond(exchange, 400, problem("Malformed request", 400, 0));
+            return;
+        }
+        final String username = data.group(1);
+        if (REGISTER_PATTERN.matcher(body).find()) {
+            if (passwords.putIfAbsent(username, password.group(1)) != null) {
+                respond(exchange, 400, problem("The account already exists.", 400, CODE_EXISTING_ACCOUNT));
+                return;
+            }
+        } else {
+            final String expected = passwords.get(username);
+            if (expected == null) {
+                respond(exchange, 400, problem("The account does not exist.", 400, CODE_UNKNOWN_ACCOUNT));
+                return;
+            }
+            if (!expected.equals(password.group(1))) {
+                respond(exchange, 400, problem("The provided credentials are invalid.", 400, CODE_INVALID_CREDENTIALS));
+                return;
+            }
+        }
+        respond(exchange, 200, "{\"refresh_token\":{\"token\":\"mock\",\"token_data\":{\"identity\":\""
+                + Integer.toHexString(username.hashCode()) + "\",\"is_admin\":false,\"expires\":"
+                + (System.currentTimeMillis() / 1000 + 3600) + "}}}");
+    }
+
+    private static String problem(String title, int status, int code) {
+        return "{\"type\":\"https://realm.io/docs/object-server/problems\",\"title\":\"" + title + "\",\"status\":"
+                + status + ",\"code\":" + code + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        final byte[] bytes = json.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toString("UTF-8");
+    }
+}
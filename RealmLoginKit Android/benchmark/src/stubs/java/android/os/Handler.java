@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JVM stand-in for {@code android.os.Handler} that posts to the {@link Looper#getMainLooper() main looper}.
+ */
+public class Handler {
+    private final Looper looper;
+    private final Map<Runnable, List<Future<?>>> posted = new HashMap<>();
+
+    public Handler() {
+        this(Looper.getMainLooper());
+    }
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    public final boolean post(Runnable runnable) {
+        return postDelayed(runnable, 0);
+    }
+
+    public final boolean postDelayed(final Runnable runnable, long delayMillis) {
+        synchronized (posted) {
+            final Future<?>[] future = new Future<?>[1];
+            future[0] = looper.executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (posted) {
+                        final List<Future<?>> futures = posted.get(runnable);
+                        if (futures == null || !futures.remove(future[0])) {
+                            return;
+                        }
+                        if (futures.isEmpty()) {
+                            posted.remove(runnable);
+                        }
+                    }
+                    runnable.run();
+                }
+            }, Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+            List<Future<?>> futures = posted.get(runnable);
+            if (futures == null) {
+                futures = new ArrayList<>();
+                posted.put(runnable, futures);
+            }
+            futures.add(future[0]);
+        }
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable runnable) {
+        synchronized (posted) {
+            final List<Future<?>> futures = posted.remove(runnable);
+            if (futures != null) {
+                for (Future<?> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+}
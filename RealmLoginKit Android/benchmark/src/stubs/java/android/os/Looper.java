@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A JVM stand-in for {@code android.os.Looper}. There is only the main looper, which runs its messages in order on a
+ * single daemon thread.
+ */
+public final class Looper {
+    private static final Looper mainLooper = new Looper();
+
+    private final Thread[] thread = new Thread[1];
+    final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread mainThread = new Thread(runnable, "main");
+            mainThread.setDaemon(true);
+            synchronized (thread) {
+                thread[0] = mainThread;
+            }
+            return mainThread;
+        }
+    });
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return mainLooper;
+    }
+
+    public static Looper myLooper() {
+        return Thread.currentThread() == mainLooper.getThread() ? mainLooper : null;
+    }
+
+    public Thread getThread() {
+        synchronized (thread) {
+            return thread[0];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm;
+
+/**
+ * A JVM stand-in for the error codes of the Realm Android library, limited to the ones LoginKit refers to.
+ */
+public enum ErrorCode {
+    UNKNOWN(Category.FATAL),
+    IO_EXCEPTION(Category.RECOVERABLE),
+    CONNECTION_CLOSED(Category.RECOVERABLE),
+    ACCESS_DENIED(Category.FATAL),
+    INVALID_CREDENTIALS(Category.FATAL),
+    UNKNOWN_ACCOUNT(Category.FATAL),
+    EXISTING_ACCOUNT(Category.FATAL);
+
+    public enum Category {
+        FATAL,
+        RECOVERABLE
+    }
+
+    private final Category category;
+
+    ErrorCode(Category category) {
+        this.category = category;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm;
+
+/**
+ * A JVM stand-in for the error type of the Realm Android library.
+ */
+public class ObjectServerError extends RuntimeException {
+    private final ErrorCode errorCode;
+    private final String errorMessage;
+
+    public ObjectServerError(ErrorCode errorCode, String errorMessage) {
+        super(errorCode + ": " + errorMessage);
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    public ErrorCode.Category getCategory() {
+        return errorCode.getCategory();
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
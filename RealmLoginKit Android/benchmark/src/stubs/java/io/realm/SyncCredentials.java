@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A JVM stand-in for the credentials type of the Realm Android library, limited to the password provider.
+ */
+public class SyncCredentials {
+    private final String userIdentifier;
+    private final String identityProvider;
+    private final Map<String, Object> userInfo;
+
+    private SyncCredentials(String userIdentifier, String identityProvider, Map<String, Object> userInfo) {
+        this.userIdentifier = userIdentifier;
+        this.identityProvider = identityProvider;
+        this.userInfo = userInfo;
+    }
+
+    public static SyncCredentials usernamePassword(String username, String password, boolean createUser) {
+        final Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("register", createUser);
+        userInfo.put("password", password);
+        return new SyncCredentials(username, "password", userInfo);
+    }
+
+    public String getUserIdentifier() {
+        return userIdentifier;
+    }
+
+    public String getIdentityProvider() {
+        return identityProvider;
+    }
+
+    public Map<String, Object> getUserInfo() {
+        return userInfo;
+    }
+}
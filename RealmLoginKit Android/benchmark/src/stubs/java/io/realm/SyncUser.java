@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm;
+
+/**
+ * A JVM stand-in for the user type of the Realm Android library. Unlike the real one, it can be created directly, so
+ * that fake transports can hand out users. Logging in with {@link #loginAsync} is not supported.
+ */
+public class SyncUser {
+
+    public interface Callback {
+        void onSuccess(SyncUser user);
+
+        void onError(ObjectServerError error);
+    }
+
+    public static RealmAsyncTask loginAsync(SyncCredentials credentials, String authenticationUrl, Callback callback) {
+        throw new UnsupportedOperationException("Set a fake AuthTransport with AuthTransports.setDefault()");
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointSelectorTest {
+    private static final int TIMEOUT_MS = 2000;
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    // Answers with the configured latency after waiting for it, and counts the probes per endpoint.
+    private static final class FakeProbe implements EndpointSelector.LatencyProbe {
+        private final Map<String, Long> latencies = new HashMap<>();
+        private final AtomicInteger probeCount = new AtomicInteger();
+
+        private FakeProbe with(String authUri, long latencyMs) {
+            latencies.put(authUri, latencyMs);
+            return this;
+        }
+
+        @Override
+        public long measureLatency(String authUri, int timeoutMs) {
+            probeCount.incrementAndGet();
+            final long latencyMs = latencies.get(authUri);
+            try {
+                Thread.sleep(Math.max(latencyMs, 0));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return latencyMs;
+        }
+    }
+
+    private final BlockingQueue<List<String>> selections = new LinkedBlockingQueue<>();
+    private final BlockingQueue<EndpointSelector.Reason> reasons = new LinkedBlockingQueue<>();
+    private final EndpointSelector.Callback callback = new EndpointSelector.Callback() {
+        @Override
+        public void onSelected(List<String> authUris) {
+            selections.add(authUris);
+        }
+    };
+    private ServerSocket server;
+    private ServerSocket secondServer;
+    private String refusingUri;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        secondServer = new ServerSocket(0);
+        // Nothing listens on a port that was just released, so connecting to it is refused.
+        final ServerSocket closed = new ServerSocket(0);
+        refusingUri = authUri(closed);
+        closed.close();
+        EndpointSelector.setListener(new EndpointSelector.Listener() {
+            @Override
+            public void onEndpointSelected(String authUri, EndpointSelector.Reason reason, long latencyMs) {
+                reasons.add(reason);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        EndpointSelector.setListener(null);
+        server.close();
+        secondServer.close();
+    }
+
+    @Test
+    public void select_fastestEndpointFirst() throws InterruptedException {
+        final FakeProbe probe = new FakeProbe().with("slow", 500).with("fast", 10);
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS, probe);
+
+        selector.select(Arrays.asList("slow", "fast"), callback);
+
+        assertEquals(Arrays.asList("fast", "slow"), nextSelection());
+        assertEquals(EndpointSelector.Reason.FASTEST, nextReason());
+    }
+
+    @Test
+    public void select_ordersCachedResultsByLatency() throws InterruptedException {
+        final FakeProbe probe = new FakeProbe().with("a", 30).with("b", 10).with("c", 20);
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS, probe);
+        final List<String> authUris = Arrays.asList("a", "b", "c");
+        selector.select(authUris, callback);
+        nextSelection();
+        Thread.sleep(200);
+
+        selector.select(authUris, callback);
+
+        assertEquals(Arrays.asList("b", "c", "a"), nextSelection());
+        assertEquals(3, probe.probeCount.get());
+    }
+
+    @Test
+    public void select_refusedEndpointLast() throws InterruptedException {
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS);
+        final String reachableUri = authUri(server);
+
+        selector.select(Arrays.asList(refusingUri, reachableUri), callback);
+
+        assertEquals(Arrays.asList(reachableUri, refusingUri), nextSelection());
+    }
+
+    @Test
+    public void select_noEndpointReachable_keepsConfiguredOrder() throws InterruptedException {
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS);
+        final String otherRefusingUri = "http://127.0.0.1:1/auth";
+
+        selector.select(Arrays.asList(refusingUri, otherRefusingUri), callback);
+
+        assertEquals(Arrays.asList(refusingUri, otherRefusingUri), nextSelection());
+        assertEquals(EndpointSelector.Reason.UNREACHABLE, nextReason());
+    }
+
+    @Test
+    public void reportFailover_movesFailedEndpointLast() throws InterruptedException {
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS);
+        final String firstUri = authUri(server);
+        final String secondUri = authUri(secondServer);
+        final List<String> authUris = Arrays.asList(firstUri, secondUri);
+        selector.probe(authUris);
+        Thread.sleep(200);
+
+        selector.reportFailover(firstUri, secondUri);
+        assertEquals(EndpointSelector.Reason.FAILOVER, nextReason());
+        selector.select(authUris, callback);
+
+        assertEquals(Arrays.asList(secondUri, firstUri), nextSelection());
+    }
+
+    @Test
+    public void select_withinTtl_usesCachedResult() throws InterruptedException {
+        final FakeProbe probe = new FakeProbe().with("a", 0);
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS, probe);
+        selector.select(Arrays.asList("a"), callback);
+        nextSelection();
+        nextReason();
+
+        selector.select(Arrays.asList("a"), callback);
+
+        nextSelection();
+        assertEquals(EndpointSelector.Reason.CACHED, nextReason());
+        assertEquals(1, probe.probeCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void select_noEndpoints_throws() {
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS, new FakeProbe());
+
+        selector.select(Collections.<String>emptyList(), callback);
+    }
+
+    @Test
+    public void select_manyEndpoints_forgetsLeastRecentlyUsed() throws InterruptedException {
+        final FakeProbe probe = new FakeProbe();
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 60000, TIMEOUT_MS, probe);
+        for (int i = 0; i <= EndpointSelector.CACHE_SIZE; i++) {
+            probe.with("e" + i, 0);
+            selector.select(Arrays.asList("e" + i), callback);
+            nextSelection();
+        }
+        reasons.clear();
+
+        selector.select(Arrays.asList("e0"), callback);
+
+        nextSelection();
+        assertEquals(EndpointSelector.Reason.FASTEST, nextReason());
+        assertEquals(EndpointSelector.CACHE_SIZE + 2, probe.probeCount.get());
+    }
+
+    @Test
+    public void select_afterTtl_probesAgain() throws InterruptedException {
+        final FakeProbe probe = new FakeProbe().with("a", 0);
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 50, TIMEOUT_MS, probe);
+        selector.select(Arrays.asList("a"), callback);
+        nextSelection();
+        nextReason();
+        Thread.sleep(100);
+
+        selector.select(Arrays.asList("a"), callback);
+
+        nextSelection();
+        assertEquals(EndpointSelector.Reason.FASTEST, nextReason());
+        assertEquals(2, probe.probeCount.get());
+    }
+
+    @Test
+    public void select_afterTtl_seesRecoveredEndpoint() throws IOException, InterruptedException {
+        final EndpointSelector selector = new EndpointSelector(DIRECT, 300, TIMEOUT_MS);
+        final String secondUri = authUri(secondServer);
+        final ServerSocket restarted = new ServerSocket(0);
+        final String firstUri = authUri(restarted);
+        restarted.close();
+        final List<String> authUris = Arrays.asList(firstUri, secondUri, refusingUri);
+        selector.select(authUris, callback);
+        assertEquals(secondUri, nextSelection().get(0));
+
+        final ServerSocket recovered = new ServerSocket(restarted.getLocalPort());
+        try {
+            Thread.sleep(350);
+            selector.probe(authUris);
+            Thread.sleep(100);
+            selector.select(authUris, callback);
+
+            final List<String> selection = nextSelection();
+            assertEquals(refusingUri, selection.get(2));
+            assertTrue(selection.indexOf(firstUri) < 2);
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private List<String> nextSelection() throws InterruptedException {
+        final List<String> selection = selections.poll(TIMEOUT_MS * 2, TimeUnit.MILLISECONDS);
+        assertNotNull(selection);
+        return selection;
+    }
+
+    private EndpointSelector.Reason nextReason() throws InterruptedException {
+        final EndpointSelector.Reason reason = reasons.poll(TIMEOUT_MS * 2, TimeUnit.MILLISECONDS);
+        assertNotNull(reason);
+        return reason;
+    }
+
+    private static String authUri(ServerSocket serverSocket) {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/auth";
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpUsernameAvailabilityServiceTest {
+    private static final String PATH = "/users/available";
+
+    private final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> methods = Collections.synchronizedList(new ArrayList<String>());
+    private HttpServer server;
+    private String authUri;
+    private HttpUsernameAvailabilityService service;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final String body = readBody(exchange);
+                final String username = URLDecoder.decode(body, "UTF-8");
+                bodies.add(body);
+                methods.add(exchange.getRequestMethod());
+                final int status;
+                if (username.equals("username=free@example.com")) {
+                    status = 200;
+                } else if (username.equals("username=taken@example.com")) {
+                    status = 409;
+                } else {
+                    status = 500;
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        authUri = "http://127.0.0.1:" + server.getAddress().getPort() + "/auth";
+        service = new HttpUsernameAvailabilityService(PATH);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void ok_isAvailable() throws IOException {
+        assertTrue(service.isAvailable(authUri, "free@example.com"));
+    }
+
+    @Test
+    public void conflict_isTaken() throws IOException {
+        assertFalse(service.isAvailable(authUri, "taken@example.com"));
+    }
+
+    @Test
+    public void otherStatus_throws() {
+        try {
+            service.isAvailable(authUri, "broken@example.com");
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void username_isPostedEncoded() throws IOException {
+        try {
+            service.isAvailable(authUri, "a b&c@example.com");
+        } catch (IOException ignored) {
+            // Only the request matters.
+        }
+        assertEquals("POST", methods.get(0));
+        assertEquals("username=a+b%26c%40example.com", bodies.get(0));
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final InputStream in = exchange.getRequestBody();
+        final byte[] buffer = new byte[256];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            body.write(buffer, 0, count);
+        }
+        return body.toString("UTF-8");
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.realm.ErrorCode;
+import io.realm.ObjectServerError;
+import io.realm.RealmAsyncTask;
+import io.realm.SyncCredentials;
+import io.realm.SyncUser;
+import io.realm.realmloginkit.transport.AuthTransport;
+import io.realm.realmloginkit.transport.AuthTransports;
+import io.realm.realmloginkit.transport.ConnectionStats;
+import io.realm.realmloginkit.transport.FakeAuthTransport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LoginRequestManagerTest {
+    private static final String AUTH_URI = "http://127.0.0.1:9080/auth";
+    private static final long WAIT_MS = 5000;
+    private static final AtomicInteger nextUser = new AtomicInteger();
+
+    // Receives the result of a request.
+    private static final class Recorder implements SyncUser.Callback {
+        private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onSuccess(SyncUser user) {
+            results.add(user);
+        }
+
+        @Override
+        public void onError(ObjectServerError error) {
+            results.add(error);
+        }
+
+        private Object next() throws InterruptedException {
+            return results.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private Object nextWithin(long timeoutMs) throws InterruptedException {
+            return results.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final LoginRequestManager manager = LoginRequestManager.getInstance();
+    private final List<String> requestedUris = Collections.synchronizedList(new ArrayList<String>());
+    private final List<ServerSocket> servers = new ArrayList<>();
+    private FakeAuthTransport transport;
+    private String username;
+
+    @Before
+    public void setUp() {
+        transport = new FakeAuthTransport().setLatencyMs(50);
+        // Records every attempt before handing it to the fake.
+        AuthTransports.setDefault(new AuthTransport() {
+            @Override
+            public RealmAsyncTask logIn(SyncCredentials credentials, String authUri, SyncUser.Callback callback) {
+                requestedUris.add(authUri);
+                return transport.logIn(credentials, authUri, callback);
+            }
+
+            @Override
+            public ConnectionStats getConnectionStats() {
+                return transport.getConnectionStats();
+            }
+        });
+        // Every test logs in as a different user, so it never joins a request left over by another test.
+        username = "user-" + nextUser.incrementAndGet() + "@example.com";
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        AuthTransports.setDefault(null);
+        for (ServerSocket server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void identicalLogins_shareOneCall() throws InterruptedException {
+        final SyncUser user = new SyncUser();
+        transport.setDefaultSuccess(user);
+        final Recorder first = new Recorder();
+        final Recorder second = new Recorder();
+
+        final int[] ids = new int[2];
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                ids[0] = manager.logIn(AUTH_URI, username, "secret", false);
+                manager.attach(ids[0], first);
+                ids[1] = manager.logIn(AUTH_URI, username, "secret", false);
+                manager.attach(ids[1], second);
+            }
+        });
+
+        assertEquals(ids[0], ids[1]);
+        assertSame(user, first.next());
+        assertSame(user, second.next());
+        assertEquals(1, requestedUris.size());
+    }
+
+    @Test
+    public void differentPasswords_doNotShareACall() throws InterruptedException {
+        transport.setDefaultSuccess(new SyncUser());
+        final Recorder first = new Recorder();
+        final Recorder second = new Recorder();
+
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                manager.attach(manager.logIn(AUTH_URI, username, "secret", false), first);
+                manager.attach(manager.logIn(AUTH_URI, username, "other", false), second);
+            }
+        });
+
+        first.next();
+        second.next();
+        assertEquals(2, requestedUris.size());
+    }
+
+    @Test
+    public void resultWithoutCallback_isDeliveredOnAttach() throws InterruptedException {
+        final SyncUser user = new SyncUser();
+        transport.setDefaultSuccess(user);
+        final int[] id = new int[1];
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                id[0] = manager.logIn(AUTH_URI, username, "secret", false);
+            }
+        });
+        Thread.sleep(200);
+        final Recorder recorder = new Recorder();
+
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(manager.isPending(id[0]));
+                manager.attach(id[0], recorder);
+            }
+        });
+
+        assertSame(user, recorder.next());
+        assertFalse(isPending(id[0]));
+    }
+
+    @Test
+    public void cancelByOneCaller_keepsTheSharedCallForTheOthers() throws InterruptedException {
+        final SyncUser user = new SyncUser();
+        transport.setDefaultSuccess(user);
+        final Recorder activity = new Recorder();
+        final Recorder headless = new Recorder();
+
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                final int id = manager.logIn(AUTH_URI, username, "secret", false);
+                manager.attach(id, activity);
+                manager.attach(manager.logIn(AUTH_URI, username, "secret", false), headless);
+                manager.cancel(id, activity);
+            }
+        });
+
+        assertSame(user, headless.next());
+        assertNull(activity.nextWithin(200));
+        assertEquals(1, requestedUris.size());
+    }
+
+    @Test
+    public void cancelByLastCaller_cancelsTheCallAndNotifiesAttachedCallbacks() throws InterruptedException {
+        transport.setDefaultSuccess(new SyncUser());
+        final Recorder owner = new Recorder();
+        // Attached without logging in, like an activity restoring a request after it was recreated.
+        final Recorder observer = new Recorder();
+        final int[] id = new int[1];
+
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                id[0] = manager.logIn(AUTH_URI, username, "secret", false);
+                manager.attach(id[0], owner);
+                manager.attach(id[0], observer);
+                manager.cancel(id[0], owner);
+            }
+        });
+
+        final Object result = observer.next();
+        assertTrue(result instanceof ObjectServerError);
+        assertNull(owner.nextWithin(200));
+        assertFalse(isPending(id[0]));
+    }
+
+    @Test
+    public void networkError_isRetried() throws InterruptedException {
+        final SyncUser user = new SyncUser();
+        transport.enqueueError(new ObjectServerError(ErrorCode.IO_EXCEPTION, "down"))
+                .enqueueError(new ObjectServerError(ErrorCode.CONNECTION_CLOSED, "down"))
+                .setDefaultSuccess(user);
+        final Recorder recorder = new Recorder();
+
+        logIn(Collections.singletonList(AUTH_URI), fastRetries(3, RetryPolicy.NO_DEADLINE), recorder);
+
+        assertSame(user, recorder.next());
+        assertEquals(3, requestedUris.size());
+    }
+
+    @Test
+    public void retriesStopAtMaxAttempts() throws InterruptedException {
+        final ObjectServerError error = new ObjectServerError(ErrorCode.IO_EXCEPTION, "down");
+        transport.setDefaultError(error);
+        final Recorder recorder = new Recorder();
+
+        logIn(Collections.singletonList(AUTH_URI), fastRetries(3, RetryPolicy.NO_DEADLINE), recorder);
+
+        assertSame(error, recorder.next());
+        assertEquals(3, requestedUris.size());
+    }
+
+    @Test
+    public void credentialError_isNotRetried() throws InterruptedException {
+        final ObjectServerError error = new ObjectServerError(ErrorCode.INVALID_CREDENTIALS, "wrong password");
+        transport.setDefaultError(error);
+        final Recorder recorder = new Recorder();
+
+        logIn(Collections.singletonList(AUTH_URI), fastRetries(3, RetryPolicy.NO_DEADLINE), recorder);
+
+        assertSame(error, recorder.next());
+        assertEquals(1, requestedUris.size());
+    }
+
+    @Test
+    public void deadline_failsTheRunningAttempt() throws InterruptedException {
+        transport.setLatencyMs(2000).setDefaultSuccess(new SyncUser());
+        final Recorder recorder = new Recorder();
+
+        final long startedAt = System.nanoTime();
+        logIn(Collections.singletonList(AUTH_URI), fastRetries(3, 200), recorder);
+
+        final Object result = recorder.next();
+        assertTrue(result instanceof ObjectServerError);
+        assertEquals(ErrorCode.IO_EXCEPTION, ((ObjectServerError) result).getErrorCode());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 1000);
+        // The cancelled attempt does not deliver a second result.
+        assertNull(recorder.nextWithin(2500));
+    }
+
+    @Test
+    public void deadlineDuringEndpointSelection_doesNotStartAnAttempt() throws IOException, InterruptedException {
+        transport.setDefaultSuccess(new SyncUser());
+        final Recorder recorder = new Recorder();
+
+        // Neither endpoint accepts connections, so the selection waits for the probe timeout.
+        logIn(Arrays.asList(stalledAuthUri(), stalledAuthUri()), fastRetries(3, 200), recorder);
+
+        assertTrue(recorder.next() instanceof ObjectServerError);
+        Thread.sleep(EndpointSelector.DEFAULT_PROBE_TIMEOUT_MS + 1000);
+        assertEquals(0, requestedUris.size());
+        assertNull(recorder.nextWithin(0));
+    }
+
+    @Test
+    public void networkError_failsOverToTheNextEndpoint() throws IOException, InterruptedException {
+        final SyncUser user = new SyncUser();
+        transport.enqueueError(new ObjectServerError(ErrorCode.IO_EXCEPTION, "down")).setDefaultSuccess(user);
+        final Recorder recorder = new Recorder();
+
+        logIn(Arrays.asList(listeningAuthUri(), listeningAuthUri()), RetryPolicy.NONE, recorder);
+
+        assertSame(user, recorder.next());
+        assertEquals(2, requestedUris.size());
+        assertNotEquals(requestedUris.get(0), requestedUris.get(1));
+    }
+
+    private void logIn(final List<String> authUris, final RetryPolicy retryPolicy, final Recorder recorder)
+            throws InterruptedException {
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                manager.attach(manager.logIn(authUris, username, "secret", false, retryPolicy), recorder);
+            }
+        });
+    }
+
+    private boolean isPending(final int requestId) throws InterruptedException {
+        final boolean[] isPending = new boolean[1];
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                isPending[0] = manager.isPending(requestId);
+            }
+        });
+        return isPending[0];
+    }
+
+    private static RetryPolicy fastRetries(int maxAttempts, long deadlineMs) {
+        return new RetryPolicy.Builder()
+                .setMaxAttempts(maxAttempts)
+                .setDelayMs(10, 10)
+                .setDeadlineMs(deadlineMs)
+                .build();
+    }
+
+    private String listeningAuthUri() throws IOException {
+        final ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getLocalPort() + "/auth";
+    }
+
+    // A server whose accept queue is full, so that further connects hang until they time out.
+    private String stalledAuthUri() throws IOException {
+        final ServerSocket server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        servers.add(server);
+        for (int i = 0; i < 2; i++) {
+            final Socket socket = new Socket();
+            socket.connect(new InetSocketAddress("127.0.0.1", server.getLocalPort()), 1000);
+        }
+        return "http://127.0.0.1:" + server.getLocalPort() + "/auth";
+    }
+
+    private static void runOnMainThread(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                runnable.run();
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
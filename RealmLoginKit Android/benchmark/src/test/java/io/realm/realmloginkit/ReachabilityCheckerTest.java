@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ReachabilityCheckerTest {
+    private static final long WAIT_MS = ReachabilityChecker.DEBOUNCE_MS + 3000;
+
+    private final BlockingQueue<ReachabilityChecker.State> states = new LinkedBlockingQueue<>();
+    private ReachabilityChecker checker;
+    private ServerSocket server;
+
+    @Before
+    public void setUp() throws IOException {
+        checker = new ReachabilityChecker(new ReachabilityChecker.Listener() {
+            @Override
+            public void onReachabilityChanged(ReachabilityChecker.State state) {
+                states.add(state);
+            }
+        });
+        server = new ServerSocket(0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void malformedAddress_isUnknown() throws InterruptedException {
+        check("http://[");
+        assertEquals(ReachabilityChecker.State.UNKNOWN, nextState());
+        check("example.com:99999999999");
+        assertEquals(ReachabilityChecker.State.UNKNOWN, nextState());
+    }
+
+    @Test
+    public void emptyAddress_isUnknown() throws InterruptedException {
+        check("  ");
+        assertEquals(ReachabilityChecker.State.UNKNOWN, nextState());
+    }
+
+    @Test
+    public void listeningServer_isReachable() throws InterruptedException {
+        check("http://127.0.0.1:" + server.getLocalPort());
+
+        assertEquals(ReachabilityChecker.State.CHECKING, nextState());
+        assertEquals(ReachabilityChecker.State.REACHABLE, nextState());
+    }
+
+    @Test
+    public void refusingServer_isUnreachable() throws IOException, InterruptedException {
+        final ServerSocket closed = new ServerSocket(0);
+        closed.close();
+        check("http://127.0.0.1:" + closed.getLocalPort());
+
+        assertEquals(ReachabilityChecker.State.CHECKING, nextState());
+        assertEquals(ReachabilityChecker.State.UNREACHABLE, nextState());
+    }
+
+    @Test
+    public void recentResult_isReportedWithoutProbing() throws InterruptedException {
+        final String serverUri = "http://127.0.0.1:" + server.getLocalPort();
+        check(serverUri);
+        nextState();
+        nextState();
+
+        check(serverUri);
+
+        assertEquals(ReachabilityChecker.State.REACHABLE, nextState());
+        assertNull(states.poll(ReachabilityChecker.DEBOUNCE_MS * 2, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancel_dropsPendingCheck() throws InterruptedException {
+        check("http://127.0.0.1:" + server.getLocalPort());
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                checker.cancel();
+            }
+        });
+
+        assertNull(states.poll(ReachabilityChecker.DEBOUNCE_MS * 2, TimeUnit.MILLISECONDS));
+    }
+
+    private void check(final String serverUri) throws InterruptedException {
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                checker.check(serverUri);
+            }
+        });
+    }
+
+    private ReachabilityChecker.State nextState() throws InterruptedException {
+        return states.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void runOnMainThread(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                runnable.run();
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
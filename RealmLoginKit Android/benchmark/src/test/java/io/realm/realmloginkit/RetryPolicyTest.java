@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    // Always returns the same fraction, so that jittered delays are predictable.
+    private static final class FixedRandom extends Random {
+        private final double value;
+
+        private FixedRandom(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double nextDouble() {
+            return value;
+        }
+    }
+
+    private static final Random NO_JITTER = new FixedRandom(0);
+
+    @Test
+    public void delay_doublesUpToMaximum() {
+        final RetryPolicy policy = new RetryPolicy.Builder()
+                .setMaxAttempts(10)
+                .setDelayMs(100, 1000)
+                .setJitter(0)
+                .setDeadlineMs(RetryPolicy.NO_DEADLINE)
+                .build();
+
+        assertEquals(100, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 0, NO_JITTER));
+        assertEquals(200, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 2, 0, NO_JITTER));
+        assertEquals(400, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 3, 0, NO_JITTER));
+        assertEquals(800, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 4, 0, NO_JITTER));
+        assertEquals(1000, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 5, 0, NO_JITTER));
+    }
+
+    @Test
+    public void largeAttemptCounts_doNotOverflow() {
+        final RetryPolicy policy = new RetryPolicy.Builder()
+                .setMaxAttempts(Integer.MAX_VALUE)
+                .setDelayMs(1L << 40, Long.MAX_VALUE / 2)
+                .setJitter(0)
+                .setDeadlineMs(RetryPolicy.NO_DEADLINE)
+                .build();
+
+        assertEquals(1L << 61, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 22, 0, NO_JITTER));
+        assertEquals(Long.MAX_VALUE / 2, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 23, 0, NO_JITTER));
+        assertEquals(Long.MAX_VALUE / 2, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 64, 0, NO_JITTER));
+        assertEquals(Long.MAX_VALUE / 2, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, Integer.MAX_VALUE - 1, 0, NO_JITTER));
+    }
+
+    @Test
+    public void jitter_shortensDelayByAtMostTheJitterFraction() {
+        final RetryPolicy policy = new RetryPolicy.Builder()
+                .setDelayMs(1000, 1000)
+                .setJitter(0.5)
+                .build();
+
+        assertEquals(1000, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 0, new FixedRandom(0)));
+        assertEquals(750, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 0, new FixedRandom(0.5)));
+        assertEquals(501, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 0, new FixedRandom(0.999)));
+
+        final Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            final long delay = policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 0, random);
+            assertTrue(delay > 500 && delay <= 1000);
+        }
+    }
+
+    @Test
+    public void deadline_stopsRetriesThatWouldStartAfterIt() {
+        final RetryPolicy policy = new RetryPolicy.Builder()
+                .setMaxAttempts(5)
+                .setDelayMs(1000, 1000)
+                .setJitter(0)
+                .setDeadlineMs(10000)
+                .build();
+
+        assertEquals(1000, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 8999, NO_JITTER));
+        assertEquals(-1, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 9000, NO_JITTER));
+        assertEquals(-1, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 20000, NO_JITTER));
+    }
+
+    @Test
+    public void exhaustedAttempts_stopRetries() {
+        final RetryPolicy policy = new RetryPolicy.Builder().setMaxAttempts(3).build();
+
+        assertTrue(policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 2, 0, NO_JITTER) >= 0);
+        assertEquals(-1, policy.getRetryDelayMs(AuthErrorCategory.NETWORK, 3, 0, NO_JITTER));
+    }
+
+    @Test
+    public void onlyRetryableCategories_areRetried() {
+        final RetryPolicy policy = new RetryPolicy.Builder()
+                .setRetryableCategories(AuthErrorCategory.NETWORK, AuthErrorCategory.RECOVERABLE)
+                .build();
+
+        assertTrue(policy.isRetryable(AuthErrorCategory.RECOVERABLE));
+        assertFalse(policy.isRetryable(AuthErrorCategory.CREDENTIALS));
+        assertEquals(-1, policy.getRetryDelayMs(AuthErrorCategory.CREDENTIALS, 1, 0, NO_JITTER));
+        assertEquals(-1, policy.getRetryDelayMs(AuthErrorCategory.FATAL, 1, 0, NO_JITTER));
+    }
+
+    @Test
+    public void none_neverRetriesAndHasNoDeadline() {
+        assertEquals(1, RetryPolicy.NONE.getMaxAttempts());
+        assertEquals(RetryPolicy.NO_DEADLINE, RetryPolicy.NONE.getDeadlineMs());
+        assertEquals(-1, RetryPolicy.NONE.getRetryDelayMs(AuthErrorCategory.NETWORK, 1, 0, NO_JITTER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsJitterAboveOne() {
+        new RetryPolicy.Builder().setJitter(1.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsMaximumBelowBaseDelay() {
+        new RetryPolicy.Builder().setDelayMs(1000, 500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsNonPositiveDeadline() {
+        new RetryPolicy.Builder().setDeadlineMs(0);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UsernameAvailabilityCheckerTest {
+    private static final long WAIT_MS = UsernameAvailabilityChecker.DEBOUNCE_MS + 3000;
+    private static int nextServer;
+
+    // Blocks each request until it is released, and records the usernames and the highest concurrency it saw.
+    private static final class BlockingService implements UsernameAvailabilityService {
+        private final List<String> usernames = Collections.synchronizedList(new ArrayList<String>());
+        private final Semaphore started = new Semaphore(0);
+        private final Semaphore released = new Semaphore(0);
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        public boolean isAvailable(String authUri, String username) throws IOException {
+            usernames.add(username);
+            final int nowRunning = running.incrementAndGet();
+            maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+            started.release();
+            try {
+                released.acquire();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+            return !username.startsWith("taken");
+        }
+    }
+
+    private final BlockingQueue<UsernameAvailabilityChecker.State> states = new LinkedBlockingQueue<>();
+    private BlockingService service;
+    private UsernameAvailabilityChecker checker;
+    private String serverUri;
+
+    @Before
+    public void setUp() {
+        service = new BlockingService();
+        UsernameAvailabilityChecker.setService(service);
+        checker = new UsernameAvailabilityChecker(new UsernameAvailabilityChecker.Listener() {
+            @Override
+            public void onAvailabilityChanged(UsernameAvailabilityChecker.State state) {
+                states.add(state);
+            }
+        });
+        // Results are cached per server for the whole process, so each test uses its own.
+        serverUri = "server" + nextServer++ + ".example.com";
+    }
+
+    @After
+    public void tearDown() {
+        service.released.release(100);
+        UsernameAvailabilityChecker.setService(null);
+    }
+
+    @Test
+    public void malformedAddress_isUnknown() throws InterruptedException {
+        check("http://[", "user@example.com");
+        assertEquals(UsernameAvailabilityChecker.State.UNKNOWN, nextState());
+    }
+
+    @Test
+    public void noService_isUnknown() throws InterruptedException {
+        UsernameAvailabilityChecker.setService(null);
+        check(serverUri, "user@example.com");
+        assertEquals(UsernameAvailabilityChecker.State.UNKNOWN, nextState());
+    }
+
+    @Test
+    public void result_isReportedAndCached() throws InterruptedException {
+        check(serverUri, "taken@example.com");
+        assertEquals(UsernameAvailabilityChecker.State.CHECKING, nextState());
+        service.released.release();
+        assertEquals(UsernameAvailabilityChecker.State.TAKEN, nextState());
+
+        check(serverUri, "taken@example.com");
+
+        assertEquals(UsernameAvailabilityChecker.State.TAKEN, nextState());
+        assertEquals(1, service.usernames.size());
+    }
+
+    @Test
+    public void oneRequestPerServer_onlyNewestWaits() throws InterruptedException {
+        check(serverUri, "a@example.com");
+        assertEquals(UsernameAvailabilityChecker.State.CHECKING, nextState());
+        assertTrue(service.started.tryAcquire(WAIT_MS, TimeUnit.MILLISECONDS));
+        check(serverUri, "b@example.com");
+        assertEquals(UsernameAvailabilityChecker.State.CHECKING, nextState());
+        check(serverUri, "c@example.com");
+        assertEquals(UsernameAvailabilityChecker.State.CHECKING, nextState());
+
+        service.released.release();
+        assertTrue(service.started.tryAcquire(WAIT_MS, TimeUnit.MILLISECONDS));
+        service.released.release();
+
+        // The result for "a" is no longer wanted, and "b" was replaced before it started.
+        assertEquals(UsernameAvailabilityChecker.State.AVAILABLE, nextState());
+        assertNull(states.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList("a@example.com", "c@example.com"), service.usernames);
+        assertEquals(1, service.maxRunning.get());
+    }
+
+    @Test
+    public void checkOfOtherForm_replacedWhileWaiting_isUnknown() throws InterruptedException {
+        final BlockingQueue<UsernameAvailabilityChecker.State> otherStates = new LinkedBlockingQueue<>();
+        final UsernameAvailabilityChecker otherChecker = new UsernameAvailabilityChecker(new UsernameAvailabilityChecker.Listener() {
+            @Override
+            public void onAvailabilityChanged(UsernameAvailabilityChecker.State state) {
+                otherStates.add(state);
+            }
+        });
+        check(serverUri, "a@example.com");
+        assertEquals(UsernameAvailabilityChecker.State.CHECKING, nextState());
+        assertTrue(service.started.tryAcquire(WAIT_MS, TimeUnit.MILLISECONDS));
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                otherChecker.check(serverUri, "b@example.com");
+            }
+        });
+        assertEquals(UsernameAvailabilityChecker.State.CHECKING, otherStates.poll(WAIT_MS, TimeUnit.MILLISECONDS));
+
+        check(serverUri, "c@example.com");
+
+        assertEquals(UsernameAvailabilityChecker.State.UNKNOWN, otherStates.poll(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void differentServers_runConcurrently() throws InterruptedException {
+        final UsernameAvailabilityChecker otherChecker = new UsernameAvailabilityChecker(new UsernameAvailabilityChecker.Listener() {
+            @Override
+            public void onAvailabilityChanged(UsernameAvailabilityChecker.State state) {
+            }
+        });
+        check(serverUri, "a@example.com");
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                otherChecker.check("other" + serverUri, "a@example.com");
+            }
+        });
+
+        assertTrue(service.started.tryAcquire(2, WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(2, service.maxRunning.get());
+    }
+
+    private void check(final String serverUri, final String username) throws InterruptedException {
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                checker.check(serverUri, username);
+            }
+        });
+    }
+
+    private UsernameAvailabilityChecker.State nextState() throws InterruptedException {
+        return states.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void runOnMainThread(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                runnable.run();
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
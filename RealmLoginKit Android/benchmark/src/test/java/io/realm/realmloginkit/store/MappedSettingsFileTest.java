@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedSettingsFileTest {
+    private static final int MAGIC = 0x524c4b53;
+    private static final int OFFSET_SEQUENCE = 8;
+    private static final int OFFSET_START = 12;
+    private static final int HEADER_SIZE = 16;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("settings");
+    }
+
+    @Test
+    public void putAll_isVisibleToGet() throws IOException {
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+        final Map<String, String> changes = new HashMap<>();
+        changes.put("a", "1");
+        changes.put("b", "2");
+        settings.putAll(changes);
+
+        assertEquals("1", settings.get("a"));
+        assertEquals(changes, settings.getAll());
+    }
+
+    @Test
+    public void nullValue_removesKey() throws IOException {
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+        settings.putAll(Collections.singletonMap("a", "1"));
+        settings.putAll(Collections.singletonMap("a", (String) null));
+
+        assertNull(settings.get("a"));
+    }
+
+    @Test
+    public void manyWrites_compactWithoutLosingValues() throws IOException {
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            value.append('x');
+        }
+        for (int i = 0; i < 2000; i++) {
+            settings.putAll(Collections.singletonMap("key" + (i % 5), value.toString() + i));
+        }
+        forceReread();
+
+        final Map<String, String> values = settings.getAll();
+        assertEquals(5, values.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(value.toString() + (1995 + i), values.get("key" + i));
+        }
+        // Five live entries fit in the initial size, so compaction must have reused the space.
+        assertTrue(file.length() <= 8192);
+    }
+
+    @Test
+    public void largeValue_growsFile() throws IOException {
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            value.append('x');
+        }
+        settings.putAll(Collections.singletonMap("a", "1"));
+        settings.putAll(Collections.singletonMap("b", value.toString()));
+        forceReread();
+
+        assertEquals("1", settings.get("a"));
+        assertEquals(value.toString(), settings.get("b"));
+    }
+
+    @Test
+    public void corruptRecordLength_resetsFile() throws IOException {
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+        settings.putAll(Collections.singletonMap("a", "1"));
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(HEADER_SIZE + 1);
+            raw.writeInt(Integer.MAX_VALUE);
+        }
+        forceReread();
+
+        assertTrue(settings.getAll().isEmpty());
+        settings.putAll(Collections.singletonMap("b", "2"));
+        forceReread();
+        assertEquals(Collections.singletonMap("b", "2"), settings.getAll());
+    }
+
+    @Test
+    public void corruptFile_isResetWhenOpened() throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(4096);
+            raw.writeInt(MAGIC);
+            raw.writeInt(2);
+            raw.writeInt(0);
+            raw.writeInt(HEADER_SIZE);
+            raw.writeByte(1);
+            raw.writeInt(-5);
+        }
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+
+        assertTrue(settings.getAll().isEmpty());
+        settings.putAll(Collections.singletonMap("a", "1"));
+        assertEquals("1", settings.get("a"));
+    }
+
+    @Test
+    public void unfinishedAppend_keepsPreviousValues() throws IOException {
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+        settings.putAll(Collections.singletonMap("a", "1"));
+        // A writer that died before writing the op byte of its first record leaves the end marker in place.
+        final int end = HEADER_SIZE + 1 + 4 + 1 + 4 + 1;
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(end + 1);
+            raw.writeInt(1);
+            raw.writeByte('b');
+            raw.writeInt(Integer.MAX_VALUE);
+        }
+        forceReread();
+
+        assertEquals(Collections.singletonMap("a", "1"), settings.getAll());
+    }
+
+    @Test
+    public void putAllIfAbsent_onlyAppliesOnce() throws IOException {
+        final MappedSettingsFile settings = MappedSettingsFile.open(file);
+        final Map<String, String> first = new HashMap<>();
+        first.put("migrated", "1");
+        first.put("a", "1");
+        final Map<String, String> second = new HashMap<>();
+        second.put("migrated", "1");
+        second.put("a", "2");
+
+        assertTrue(settings.putAllIfAbsent("migrated", first));
+        assertFalse(settings.putAllIfAbsent("migrated", second));
+        assertEquals("1", settings.get("a"));
+    }
+
+    @Test
+    public void newerVersion_isNotOverwritten() throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(4096);
+            raw.writeInt(MAGIC);
+            raw.writeInt(3);
+        }
+        try {
+            MappedSettingsFile.open(file);
+            fail();
+        } catch (IOException expected) {
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "r")) {
+            raw.seek(4);
+            assertEquals(3, raw.readInt());
+        }
+    }
+
+    // Bumps the sequence number like a write from another process, so the next read parses the file again.
+    private void forceReread() throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(OFFSET_SEQUENCE);
+            final int sequence = raw.readInt();
+            raw.seek(OFFSET_SEQUENCE);
+            raw.writeInt(sequence + 1);
+            raw.seek(OFFSET_START);
+            final int start = raw.readInt();
+            assertTrue(start >= HEADER_SIZE && start < raw.length());
+        }
+    }
+}
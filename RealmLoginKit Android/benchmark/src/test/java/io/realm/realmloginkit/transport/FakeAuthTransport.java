@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.transport;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+import io.realm.ErrorCode;
+import io.realm.ObjectServerError;
+import io.realm.RealmAsyncTask;
+import io.realm.SyncCredentials;
+import io.realm.SyncUser;
+
+/**
+ * An in-memory {@link AuthTransport} that answers with scripted results after a fixed latency, without any network.
+ * Results that were enqueued are used first, in order; after that, every login gets the default result, which is an
+ * {@link ErrorCode#IO_EXCEPTION} unless set otherwise. It opens no connections, so its {@link ConnectionStats} are
+ * all zero.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+public class FakeAuthTransport implements AuthTransport {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Queue<Result> results = new LinkedList<>();
+    private Result defaultResult = new Result(null, new ObjectServerError(ErrorCode.IO_EXCEPTION, "No result was set"));
+    private long latencyMs;
+    private int requestCount;
+    private String lastAuthUri;
+
+    private static final class Result {
+        private final SyncUser user;
+        private final ObjectServerError error;
+
+        private Result(SyncUser user, ObjectServerError error) {
+            this.user = user;
+            this.error = error;
+        }
+    }
+
+    public FakeAuthTransport setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    public FakeAuthTransport enqueueSuccess(SyncUser user) {
+        results.add(new Result(user, null));
+        return this;
+    }
+
+    public FakeAuthTransport enqueueError(ObjectServerError error) {
+        results.add(new Result(null, error));
+        return this;
+    }
+
+    public FakeAuthTransport setDefaultSuccess(SyncUser user) {
+        defaultResult = new Result(user, null);
+        return this;
+    }
+
+    public FakeAuthTransport setDefaultError(ObjectServerError error) {
+        defaultResult = new Result(null, error);
+        return this;
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    public String getLastAuthUri() {
+        return lastAuthUri;
+    }
+
+    @Override
+    public ConnectionStats getConnectionStats() {
+        return new ConnectionStats(0, 0);
+    }
+
+    @Override
+    public RealmAsyncTask logIn(SyncCredentials credentials, String authUri, final SyncUser.Callback callback) {
+        requestCount++;
+        lastAuthUri = authUri;
+        final Result queued = results.poll();
+        final Result result = queued != null ? queued : defaultResult;
+        final Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                if (result.error == null) {
+                    callback.onSuccess(result.user);
+                } else {
+                    callback.onError(result.error);
+                }
+            }
+        };
+        handler.postDelayed(delivery, latencyMs);
+        return new RealmAsyncTask() {
+            private boolean isCancelled;
+
+            @Override
+            public void cancel() {
+                handler.removeCallbacks(delivery);
+                isCancelled = true;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return isCancelled;
+            }
+        };
+    }
+}
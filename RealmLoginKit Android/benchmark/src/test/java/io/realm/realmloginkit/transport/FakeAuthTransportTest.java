@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.realm.realmloginkit.transport;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.realm.ErrorCode;
+import io.realm.ObjectServerError;
+import io.realm.RealmAsyncTask;
+import io.realm.SyncUser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FakeAuthTransportTest {
+    private static final String AUTH_URI = "http://127.0.0.1:9080/auth";
+    private static final long WAIT_MS = 5000;
+
+    private final FakeAuthTransport transport = new FakeAuthTransport();
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+    private final SyncUser.Callback callback = new SyncUser.Callback() {
+        @Override
+        public void onSuccess(SyncUser user) {
+            results.add(user);
+        }
+
+        @Override
+        public void onError(ObjectServerError error) {
+            results.add(error);
+        }
+    };
+
+    @Test
+    public void logIn_usesEnqueuedResultsInOrderThenDefault() throws InterruptedException {
+        final SyncUser user = new SyncUser();
+        final SyncUser defaultUser = new SyncUser();
+        final ObjectServerError error = new ObjectServerError(ErrorCode.INVALID_CREDENTIALS, "Wrong password");
+        transport.enqueueError(error).enqueueSuccess(user).setDefaultSuccess(defaultUser);
+
+        logIn(3);
+
+        assertSame(error, next());
+        assertSame(user, next());
+        assertSame(defaultUser, next());
+        assertEquals(3, transport.getRequestCount());
+        assertEquals(AUTH_URI, transport.getLastAuthUri());
+    }
+
+    @Test
+    public void logIn_withoutResults_failsWithIoException() throws InterruptedException {
+        logIn(1);
+
+        assertEquals(ErrorCode.IO_EXCEPTION, ((ObjectServerError) next()).getErrorCode());
+    }
+
+    @Test
+    public void cancel_dropsResult() throws InterruptedException {
+        transport.setLatencyMs(50).setDefaultSuccess(new SyncUser());
+        final RealmAsyncTask[] task = new RealmAsyncTask[1];
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                task[0] = transport.logIn(null, AUTH_URI, callback);
+                task[0].cancel();
+            }
+        });
+
+        assertTrue(task[0].isCancelled());
+        assertNull(results.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void getConnectionStats_countsNoConnections() throws InterruptedException {
+        logIn(2);
+
+        assertEquals(0, transport.getConnectionStats().getReuseCount());
+        assertEquals(0, transport.getConnectionStats().getHandshakeCount());
+    }
+
+    private void logIn(final int count) throws InterruptedException {
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    transport.logIn(null, AUTH_URI, callback);
+                }
+            }
+        });
+    }
+
+    private Object next() throws InterruptedException {
+        return results.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void runOnMainThread(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                runnable.run();
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
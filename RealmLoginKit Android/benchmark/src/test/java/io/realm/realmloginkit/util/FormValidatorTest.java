@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FormValidatorTest {
+    private FormValidator validator;
+    private List<Boolean> changes;
+
+    @Before
+    public void setUp() {
+        validator = FormValidation.newRegisterValidator();
+        changes = new ArrayList<>();
+        validator.setOnValidityChangeListener(new FormValidator.OnValidityChangeListener() {
+            @Override
+            public void onValidityChange(boolean isValid) {
+                changes.add(isValid);
+            }
+        });
+    }
+
+    @Test
+    public void newForm_isInvalid() {
+        assertFalse(validator.isValid());
+        assertFalse(validator.isFieldValid(FormValidation.FIELD_SERVER_URL));
+        // An empty confirmation matches an empty password, but is still empty.
+        assertFalse(validator.isFieldValid(FormValidation.FIELD_CONFIRM_PASSWORD));
+    }
+
+    @Test
+    public void completeForm_becomesValidOnce() {
+        fill("example.com", "user@example.com", "secret", "secret");
+
+        assertTrue(validator.isValid());
+        assertEquals(1, changes.size());
+        assertTrue(changes.get(0));
+    }
+
+    @Test
+    public void invalidEmailAddress_keepsFormInvalid() {
+        fill("example.com", "not an address", "secret", "secret");
+
+        assertFalse(validator.isValid());
+        assertFalse(validator.isFieldValid(FormValidation.FIELD_EMAIL_ADDRESS));
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void changingPassword_revalidatesConfirmation() {
+        fill("example.com", "user@example.com", "secret", "secret");
+
+        validator.onFieldChanged(FormValidation.FIELD_PASSWORD, "other");
+
+        assertFalse(validator.isFieldValid(FormValidation.FIELD_CONFIRM_PASSWORD));
+        assertFalse(validator.isValid());
+        assertEquals(2, changes.size());
+        assertFalse(changes.get(1));
+    }
+
+    @Test
+    public void disabledField_countsAsValid() {
+        fill("example.com", "user@example.com", "secret", "different");
+        assertFalse(validator.isValid());
+
+        validator.setFieldEnabled(FormValidation.FIELD_CONFIRM_PASSWORD, false);
+        assertTrue(validator.isValid());
+
+        validator.setFieldEnabled(FormValidation.FIELD_CONFIRM_PASSWORD, true);
+        assertFalse(validator.isValid());
+    }
+
+    @Test
+    public void unchangedValidity_doesNotNotify() {
+        fill("example.com", "user@example.com", "secret", "secret");
+        changes.clear();
+
+        validator.onFieldChanged(FormValidation.FIELD_SERVER_URL, "example.org");
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void logInValidator_hasNoConfirmField() {
+        final FormValidator logInValidator = FormValidation.newLogInValidator();
+        logInValidator.onFieldChanged(FormValidation.FIELD_SERVER_URL, "example.com");
+        logInValidator.onFieldChanged(FormValidation.FIELD_EMAIL_ADDRESS, "user@example.com");
+        assertFalse(logInValidator.isValid());
+
+        logInValidator.onFieldChanged(FormValidation.FIELD_PASSWORD, "secret");
+
+        assertTrue(logInValidator.isValid());
+    }
+
+    private void fill(String serverUrl, String emailAddress, String password, String confirmPassword) {
+        validator.onFieldChanged(FormValidation.FIELD_SERVER_URL, serverUrl);
+        validator.onFieldChanged(FormValidation.FIELD_EMAIL_ADDRESS, emailAddress);
+        validator.onFieldChanged(FormValidation.FIELD_PASSWORD, password);
+        validator.onFieldChanged(FormValidation.FIELD_CONFIRM_PASSWORD, confirmPassword);
+    }
+}
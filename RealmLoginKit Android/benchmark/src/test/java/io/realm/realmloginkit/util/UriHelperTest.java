@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UriHelperTest {
+
+    @Test
+    public void hostOnly_usesDefaults() {
+        assertEquals("http://example.com:9080/auth", UriHelper.getValidAuthUri("example.com"));
+    }
+
+    @Test
+    public void secureSchemes_useSecurePort() {
+        assertEquals("https://example.com:9443/auth", UriHelper.getValidAuthUri("https://example.com"));
+        assertEquals("https://example.com:9443/auth", UriHelper.getValidAuthUri("realms://example.com"));
+    }
+
+    @Test
+    public void realmScheme_mapsToHttp() {
+        assertEquals("http://example.com:9080/auth", UriHelper.getValidAuthUri("realm://example.com"));
+    }
+
+    @Test
+    public void explicitPortAndPath_areKept() {
+        final AuthEndpoint endpoint = UriHelper.parseAuthEndpoint("http://example.com:1234/custom/auth");
+        assertEquals("example.com", endpoint.getHost());
+        assertEquals(1234, endpoint.getPort());
+        assertEquals("/custom/auth", endpoint.getPath());
+    }
+
+    @Test
+    public void userInfoQueryAndFragment_areDropped() {
+        assertEquals("http://example.com:9080/auth", UriHelper.getValidAuthUri("http://user:pw@example.com?x=1#top"));
+    }
+
+    @Test
+    public void ipv6Address_keepsBracketsAndPort() {
+        final AuthEndpoint endpoint = UriHelper.parseAuthEndpoint("http://[::1]:8080");
+        assertEquals("[::1]", endpoint.getHost());
+        assertEquals(8080, endpoint.getPort());
+    }
+
+    @Test
+    public void trailingColon_usesDefaultPort() {
+        assertEquals(9080, UriHelper.parseAuthEndpoint("example.com:").getPort());
+    }
+
+    @Test
+    public void unterminatedIpv6Address_throwsIllegalArgumentException() {
+        try {
+            UriHelper.getValidAuthUri("http://[");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("IPv6"));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void nonNumericPort_throwsNumberFormatException() {
+        UriHelper.getValidAuthUri("example.com:80a");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void portOutOfRange_throwsNumberFormatException() {
+        UriHelper.getValidAuthUri("example.com:65536");
+    }
+
+    @Test
+    public void parseAuthEndpoint_isMemoized() {
+        assertSame(UriHelper.parseAuthEndpoint("memoized.example.com"), UriHelper.parseAuthEndpoint("memoized.example.com"));
+    }
+}
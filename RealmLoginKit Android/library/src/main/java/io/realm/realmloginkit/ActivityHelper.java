@@ -17,6 +17,7 @@
 package io.realm.realmloginkit;
 
 import android.content.Intent;
+import android.support.v4.os.TraceCompat;
 
 import io.realm.realmloginkit.util.Constants;
 
@@ -26,9 +27,16 @@ public class ActivityHelper {
         void onSuccess();
     }
 
-    public static void onActivityResult(int requestCode, int resultCode, Intent unused, OnSuccess onSuccess) {
+    public static void onActivityResult(int requestCode, int resultCode, Intent data, OnSuccess onSuccess) {
         if (requestCode == Constants.REQUEST_CODE_LOGIN && resultCode == Constants.RESULT_CODE_LOGIN_OK) {
-            onSuccess.onSuccess();
+            final long finishedAt = data != null ? data.getLongExtra(Constants.KEY_FINISHED_AT, Metrics.now()) : Metrics.now();
+            TraceCompat.beginSection(LoginKitMetrics.Phase.RESULT_DELIVERY.sectionName);
+            try {
+                onSuccess.onSuccess();
+            } finally {
+                TraceCompat.endSection();
+            }
+            Metrics.report(LoginKitMetrics.Phase.RESULT_DELIVERY, finishedAt, null);
         }
     }
 
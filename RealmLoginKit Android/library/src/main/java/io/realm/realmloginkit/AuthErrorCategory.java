@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import io.realm.ErrorCode;
+import io.realm.ObjectServerError;
+
+/**
+ * Coarse categories of authentication errors, used to decide which errors to retry.
+ */
+public enum AuthErrorCategory {
+    /**
+     * The server could not be reached or the connection broke.
+     */
+    NETWORK,
+    /**
+     * The server rejected the credentials or the account.
+     */
+    CREDENTIALS,
+    /**
+     * Any other error that Realm reports as recoverable.
+     */
+    RECOVERABLE,
+    /**
+     * Any other error.
+     */
+    FATAL;
+
+    public static AuthErrorCategory of(ObjectServerError error) {
+        switch (error.getErrorCode()) {
+            case IO_EXCEPTION:
+            case CONNECTION_CLOSED:
+                return NETWORK;
+            case INVALID_CREDENTIALS:
+            case UNKNOWN_ACCOUNT:
+            case EXISTING_ACCOUNT:
+            case ACCESS_DENIED:
+                return CREDENTIALS;
+            default:
+                return error.getCategory() == ErrorCode.Category.RECOVERABLE ? RECOVERABLE : FATAL;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Picks the authentication endpoint to log into when several are configured. All endpoints without a recent probe
+ * result are probed concurrently with a TCP connect, and as soon as one answers, the endpoints are ordered by
+ * latency, fastest first. Probe results are cached for a while, so that later logins usually need no probing.
+ * Probing never fails a login by itself: if no endpoint answers, they are tried in the configured order.
+ */
+public class EndpointSelector {
+    public static final long DEFAULT_TTL_MS = 60 * 1000;
+    public static final int DEFAULT_PROBE_TIMEOUT_MS = 3000;
+    static final int CACHE_SIZE = 32;
+    private static final long UNREACHABLE = ServerProbe.UNREACHABLE;
+
+    public enum Reason {
+        /**
+         * The endpoint had the lowest latency in a probe made for this login.
+         */
+        FASTEST,
+        /**
+         * The endpoint had the lowest latency in a recent probe, so it was picked without probing.
+         */
+        CACHED,
+        /**
+         * No endpoint answered the probe, so the first configured one is tried.
+         */
+        UNREACHABLE,
+        /**
+         * The previous endpoint failed with a connection-level error.
+         */
+        FAILOVER
+    }
+
+    /**
+     * Tells the host app which endpoint a login uses and why. Called on the thread of the callback executor, which
+     * is the main thread for {@link #getInstance()}.
+     */
+    public interface Listener {
+        /**
+         * @param latencyMs the measured connect latency, or -1 if it is not known.
+         */
+        void onEndpointSelected(String authUri, Reason reason, long latencyMs);
+    }
+
+    public interface Callback {
+        /**
+         * @param authUris the endpoints in the order they should be tried.
+         */
+        void onSelected(List<String> authUris);
+    }
+
+    // Measures the connect latency of one endpoint, or returns UNREACHABLE. Replaced in tests.
+    interface LatencyProbe {
+        long measureLatency(String authUri, int timeoutMs);
+    }
+
+    private static final LatencyProbe SERVER_PROBE = new LatencyProbe() {
+        @Override
+        public long measureLatency(String authUri, int timeoutMs) {
+            return new ServerProbe().measureLatency(authUri, timeoutMs);
+        }
+    };
+
+    private static final class Result {
+        private final long latencyMs;
+        private final long measuredAt;
+
+        private Result(long latencyMs, long measuredAt) {
+            this.latencyMs = latencyMs;
+            this.measuredAt = measuredAt;
+        }
+    }
+
+    private static final class Selection {
+        private final List<String> authUris;
+        private final Callback callback;
+        // The endpoints that had a fresh result when the selection started.
+        private final Set<String> cached;
+
+        private Selection(List<String> authUris, Callback callback, Set<String> cached) {
+            this.authUris = authUris;
+            this.callback = callback;
+            this.cached = cached;
+        }
+    }
+
+    private static EndpointSelector instance;
+    private static volatile Listener listener;
+
+    private final Executor callbackExecutor;
+    private final long ttlMs;
+    private final int probeTimeoutMs;
+    private final LatencyProbe latencyProbe;
+    private final ExecutorService probeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "LoginKitProbe");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final Map<String, Result> results = new LinkedHashMap<String, Result>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final Set<String> probing = new HashSet<>();
+    private final List<Selection> waiting = new ArrayList<>();
+
+    /**
+     * @param callbackExecutor runs the {@link Callback}s and {@link Listener} calls.
+     * @param ttlMs how long a probe result is used before the endpoint is probed again.
+     * @param probeTimeoutMs after how long an endpoint that did not accept the connection counts as unreachable.
+     */
+    public EndpointSelector(Executor callbackExecutor, long ttlMs, int probeTimeoutMs) {
+        this(callbackExecutor, ttlMs, probeTimeoutMs, SERVER_PROBE);
+    }
+
+    EndpointSelector(Executor callbackExecutor, long ttlMs, int probeTimeoutMs, LatencyProbe latencyProbe) {
+        this.callbackExecutor = callbackExecutor;
+        this.ttlMs = ttlMs;
+        this.probeTimeoutMs = probeTimeoutMs;
+        this.latencyProbe = latencyProbe;
+    }
+
+    public static synchronized EndpointSelector getInstance() {
+        if (instance == null) {
+            final Handler handler = new Handler(Looper.getMainLooper());
+            instance = new EndpointSelector(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    handler.post(command);
+                }
+            }, DEFAULT_TTL_MS, DEFAULT_PROBE_TIMEOUT_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Registers {@code listener} to be told which server each login goes to and why, replacing any previously
+     * registered one. It applies to all logins of the process, so set it once, e.g. from
+     * {@code Application.onCreate()}. Passing {@code null} unregisters it.
+     */
+    public static void setListener(Listener listener) {
+        EndpointSelector.listener = listener;
+    }
+
+    /**
+     * Probes the endpoints that have no recent result, without waiting for them, e.g. while the user is typing.
+     */
+    public synchronized void probe(List<String> authUris) {
+        final long now = now();
+        for (String authUri : authUris) {
+            if (!isFresh(authUri, now)) {
+                startProbe(authUri);
+            }
+        }
+    }
+
+    /**
+     * Orders {@code authUris} by latency and passes them to {@code callback}, probing the endpoints first if needed.
+     *
+     * @throws IllegalArgumentException if {@code authUris} is empty.
+     */
+    public synchronized void select(List<String> authUris, Callback callback) {
+        if (authUris.isEmpty()) {
+            throw new IllegalArgumentException("authUris must not be empty");
+        }
+        final long now = now();
+        final Set<String> cached = new HashSet<>();
+        for (String authUri : authUris) {
+            if (isFresh(authUri, now)) {
+                cached.add(authUri);
+            }
+        }
+        final Selection selection = new Selection(new ArrayList<>(authUris), callback, cached);
+        waiting.add(selection);
+        probe(authUris);
+        resolveWaiting();
+    }
+
+    /**
+     * Records that {@code failedUri} is unreachable and reports that the login moves on to {@code nextUri}.
+     */
+    public synchronized void reportFailover(String failedUri, final String nextUri) {
+        results.put(failedUri, new Result(UNREACHABLE, now()));
+        final Result next = results.get(nextUri);
+        notifyListener(nextUri, Reason.FAILOVER, next != null ? next.latencyMs : UNREACHABLE);
+    }
+
+    private void startProbe(final String authUri) {
+        if (!probing.add(authUri)) {
+            return;
+        }
+        probeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long latencyMs = latencyProbe.measureLatency(authUri, probeTimeoutMs);
+                synchronized (EndpointSelector.this) {
+                    probing.remove(authUri);
+                    results.put(authUri, new Result(latencyMs, now()));
+                    resolveWaiting();
+                }
+            }
+        });
+    }
+
+    // A selection is resolved as soon as one of its endpoints answered a probe, or once none is left to wait for.
+    private void resolveWaiting() {
+        final long now = now();
+        final Iterator<Selection> iterator = waiting.iterator();
+        while (iterator.hasNext()) {
+            final Selection selection = iterator.next();
+            boolean isAnyHealthy = false;
+            boolean isAnyProbing = false;
+            for (String authUri : selection.authUris) {
+                isAnyProbing |= probing.contains(authUri);
+                isAnyHealthy |= isFresh(authUri, now) && results.get(authUri).latencyMs != UNREACHABLE;
+            }
+            if (isAnyHealthy || !isAnyProbing) {
+                iterator.remove();
+                resolve(selection, now);
+            }
+        }
+    }
+
+    private void resolve(final Selection selection, long now) {
+        final List<String> healthy = new ArrayList<>();
+        final List<String> unknown = new ArrayList<>();
+        final List<String> unreachable = new ArrayList<>();
+        for (String authUri : selection.authUris) {
+            if (!isFresh(authUri, now)) {
+                unknown.add(authUri);
+            } else if (results.get(authUri).latencyMs == UNREACHABLE) {
+                unreachable.add(authUri);
+            } else {
+                // Insertion sort keeps the configured order among equal latencies; the lists are short.
+                final long latencyMs = results.get(authUri).latencyMs;
+                int i = healthy.size();
+                while (i > 0 && results.get(healthy.get(i - 1)).latencyMs > latencyMs) {
+                    i--;
+                }
+                healthy.add(i, authUri);
+            }
+        }
+        final List<String> ordered = new ArrayList<>(selection.authUris.size());
+        ordered.addAll(healthy);
+        ordered.addAll(unknown);
+        ordered.addAll(unreachable);
+
+        final String chosen = ordered.get(0);
+        if (healthy.isEmpty()) {
+            notifyListener(chosen, Reason.UNREACHABLE, UNREACHABLE);
+        } else {
+            final Result result = results.get(chosen);
+            notifyListener(chosen, selection.cached.contains(chosen) ? Reason.CACHED : Reason.FASTEST, result.latencyMs);
+        }
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                selection.callback.onSelected(ordered);
+            }
+        });
+    }
+
+    private void notifyListener(final String authUri, final Reason reason, final long latencyMs) {
+        final Listener listener = EndpointSelector.listener;
+        if (listener == null) {
+            return;
+        }
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onEndpointSelected(authUri, reason, latencyMs);
+            }
+        });
+    }
+
+    private boolean isFresh(String authUri, long now) {
+        final Result result = results.get(authUri);
+        return result != null && now - result.measuredAt < ttlMs;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.realm.ErrorCode;
+import io.realm.ObjectServerError;
+import io.realm.SyncUser;
+import io.realm.realmloginkit.store.CredentialStore;
+import io.realm.realmloginkit.store.CredentialStores;
+import io.realm.realmloginkit.store.StoredCredentials;
+import io.realm.realmloginkit.util.UriHelper;
+
+/**
+ * Logs in without showing any UI, e.g. from a service or a sync worker that has to re-authenticate. It goes through
+ * the same {@link LoginRequestManager} as the login screen, so an identical login already in flight is joined instead
+ * of started again. Create one with {@link LoginKit#headless(Context)}.
+ * <p>
+ * Unless credentials are set, the account remembered by the login screen is used. The {@code logIn} methods may be
+ * called from any thread; callbacks are called on the main thread.
+ */
+public class HeadlessLogin {
+    private final Context context;
+    private List<String> serverUris;
+    private String username;
+    private String password;
+    private boolean rememberCredentials;
+    private RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+    HeadlessLogin(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Logs into {@code serverUri} instead of the remembered server.
+     */
+    public HeadlessLogin setServerUri(String serverUri) {
+        this.serverUris = Collections.singletonList(serverUri);
+        return this;
+    }
+
+    /**
+     * Logs into the fastest reachable one of {@code serverUris}, as {@link LoginKit#setServerUris(List)} does.
+     */
+    public HeadlessLogin setServerUris(List<String> serverUris) {
+        if (serverUris.isEmpty()) {
+            throw new IllegalArgumentException("serverUris must not be empty");
+        }
+        this.serverUris = new ArrayList<>(serverUris);
+        return this;
+    }
+
+    /**
+     * Logs in with the given account instead of the remembered one.
+     */
+    public HeadlessLogin setCredentials(String username, String password) {
+        this.username = username;
+        this.password = password;
+        return this;
+    }
+
+    /**
+     * When enabled, a successful login with credentials set through {@link #setCredentials(String, String)} replaces
+     * the remembered account. Disabled by default.
+     */
+    public HeadlessLogin setRememberCredentials(boolean rememberCredentials) {
+        this.rememberCredentials = rememberCredentials;
+        return this;
+    }
+
+    public HeadlessLogin setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Logs in and passes the user, or the error, to {@code callback} on the main thread. Fails with
+     * {@link ErrorCode#UNKNOWN_ACCOUNT} if no credentials were set and none are remembered, and with
+     * {@link ErrorCode#INVALID_PARAMETERS} if a server URL is malformed.
+     *
+     * @throws IllegalStateException if credentials were set, but no server URI.
+     */
+    public void logIn(final SyncUser.Callback callback) {
+        if (username != null && serverUris == null) {
+            throw new IllegalStateException("A server URI must be set along with the credentials");
+        }
+        final List<String> serverUris = this.serverUris;
+        final String username = this.username;
+        final String password = this.password;
+        final boolean rememberCredentials = this.rememberCredentials;
+        final RetryPolicy retryPolicy = this.retryPolicy;
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                final CredentialStore credentialStore = CredentialStores.getDefault(context);
+                if (username != null) {
+                    start(credentialStore, serverUris, username, password, rememberCredentials, retryPolicy, callback);
+                    return;
+                }
+                final long loadStartedAt = Metrics.now();
+                credentialStore.load(new CredentialStore.Callback() {
+                    @Override
+                    public void onLoaded(StoredCredentials credentials) {
+                        Metrics.report(LoginKitMetrics.Phase.CREDENTIALS_LOAD, loadStartedAt, null);
+                        if (credentials == null) {
+                            callback.onError(new ObjectServerError(ErrorCode.UNKNOWN_ACCOUNT, "No account is remembered"));
+                            return;
+                        }
+                        final List<String> storedServerUris = serverUris != null ? serverUris : Collections.singletonList(credentials.getServerUri());
+                        start(credentialStore, storedServerUris, credentials.getEmailAddress(), credentials.getPassword(), false, retryPolicy, callback);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #logIn(SyncUser.Callback)}, returning a future instead. The future cannot be cancelled, and
+     * must not be waited for on the main thread, which delivers the result.
+     */
+    public Future<SyncUser> logIn() {
+        final LoginFuture future = new LoginFuture();
+        logIn(future);
+        return future;
+    }
+
+    private static void start(final CredentialStore credentialStore, final List<String> serverUris, final String username,
+                              final String password, final boolean rememberCredentials, RetryPolicy retryPolicy,
+                              final SyncUser.Callback callback) {
+        final long normalizationStartedAt = Metrics.beginSection(LoginKitMetrics.Phase.URI_NORMALIZATION);
+        final List<String> authUris = new ArrayList<>(serverUris.size());
+        try {
+            for (String serverUri : serverUris) {
+                authUris.add(UriHelper.getValidAuthUri(serverUri));
+            }
+        } catch (IllegalArgumentException e) {
+            // Retrying cannot fix a malformed URL, so the error is reported as a fatal one.
+            callback.onError(new ObjectServerError(ErrorCode.INVALID_PARAMETERS, "Invalid server URL: " + e.getMessage()));
+            return;
+        } finally {
+            Metrics.endSection(LoginKitMetrics.Phase.URI_NORMALIZATION, normalizationStartedAt);
+        }
+
+        final LoginRequestManager loginRequestManager = LoginRequestManager.getInstance();
+        final int requestId = loginRequestManager.logIn(authUris, username, password, false, retryPolicy);
+        loginRequestManager.attach(requestId, new SyncUser.Callback() {
+            @Override
+            public void onSuccess(SyncUser user) {
+                if (rememberCredentials) {
+                    final long persistStartedAt = Metrics.beginSection(LoginKitMetrics.Phase.CREDENTIALS_PERSIST);
+                    credentialStore.save(new StoredCredentials(serverUris.get(0), username, password));
+                    Metrics.endSection(LoginKitMetrics.Phase.CREDENTIALS_PERSIST, persistStartedAt);
+                }
+                callback.onSuccess(user);
+            }
+
+            @Override
+            public void onError(ObjectServerError error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    private static void runOnMainThread(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            new Handler(Looper.getMainLooper()).post(runnable);
+        }
+    }
+
+    private static final class LoginFuture implements Future<SyncUser>, SyncUser.Callback {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile SyncUser user;
+        private volatile ObjectServerError error;
+
+        @Override
+        public void onSuccess(SyncUser user) {
+            this.user = user;
+            done.countDown();
+        }
+
+        @Override
+        public void onError(ObjectServerError error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public SyncUser get() throws InterruptedException, ExecutionException {
+            checkNotMainThread();
+            done.await();
+            return getResult();
+        }
+
+        @Override
+        public SyncUser get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            checkNotMainThread();
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return getResult();
+        }
+
+        private SyncUser getResult() throws ExecutionException {
+            if (error != null) {
+                throw new ExecutionException(error);
+            }
+            return user;
+        }
+
+        private static void checkNotMainThread() {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                throw new IllegalStateException("The result is delivered on the main thread, so it cannot be waited for there");
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+import io.realm.realmloginkit.util.AuthEndpoint;
+import io.realm.realmloginkit.util.UriHelper;
+
+/**
+ * A {@link UsernameAvailabilityService} that asks an HTTP endpoint on the same host and port as the authentication
+ * endpoint. It sends {@code POST <path>} with the form-encoded body {@code username=<username>}, so that the address
+ * does not end up in URL logs, and expects {@code 200} if the username is available and {@code 409} if it is taken.
+ */
+public class HttpUsernameAvailabilityService implements UsernameAvailabilityService {
+    private static final int TIMEOUT_MS = 5000;
+
+    private final String path;
+
+    /**
+     * @param path the path of the endpoint, e.g. {@code /users/available}.
+     */
+    public HttpUsernameAvailabilityService(String path) {
+        this.path = path;
+    }
+
+    @Override
+    public boolean isAvailable(String authUri, String username) throws IOException {
+        final AuthEndpoint endpoint = UriHelper.parseAuthEndpoint(authUri);
+        final String scheme = endpoint.isSecure() ? "https" : "http";
+        final URL url = new URL(scheme + "://" + endpoint.getHost() + ':' + endpoint.getPort() + path);
+        final byte[] body = ("username=" + URLEncoder.encode(username, "UTF-8")).getBytes("UTF-8");
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            final OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body);
+            } finally {
+                out.close();
+            }
+            final int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_OK) {
+                return true;
+            }
+            if (responseCode == HttpURLConnection.HTTP_CONFLICT) {
+                return false;
+            }
+            throw new IOException("Unexpected response code " + responseCode);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -17,14 +17,23 @@
 package io.realm.realmloginkit;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.realm.SyncUser;
 import io.realm.realmloginkit.activity.RealmLoginActivity;
 import io.realm.realmloginkit.util.Constants;
 
 public class LoginKit {
     private Activity context;
     private Intent intent;
+    private List<String> serverUris = Collections.singletonList(null);
+    private boolean resumeSession;
+    private RealmConfigurationFactory realmConfigurationFactory;
 
     private LoginKit() {
     }
@@ -40,13 +49,178 @@ public class LoginKit {
     }
 
     public LoginKit setServerUri(String serverUri, boolean hideUri) {
+        this.serverUris = Collections.singletonList(serverUri);
+        intent.removeExtra(Constants.KEY_SERVER_URIS);
         intent.putExtra(Constants.KEY_SERVER_URI, serverUri);
         intent.putExtra(Constants.KEY_HIDE_SERVER_URI, hideUri);
         return this;
     }
 
+    /**
+     * Lets the user log into any of {@code serverUris}, e.g. regional servers of the same deployment. The server URL
+     * field is hidden. Each login goes to the fastest reachable server, and moves on to the next one if the connection
+     * fails; see {@link EndpointSelector#setListener(EndpointSelector.Listener)} to find out which one was used.
+     */
+    public LoginKit setServerUris(List<String> serverUris) {
+        if (serverUris.isEmpty()) {
+            throw new IllegalArgumentException("serverUris must not be empty");
+        }
+        setServerUri(serverUris.get(0), true);
+        this.serverUris = new ArrayList<>(serverUris);
+        intent.putStringArrayListExtra(Constants.KEY_SERVER_URIS, new ArrayList<>(serverUris));
+        return this;
+    }
+
+    /**
+     * Sets how failed authentication requests are retried while the progress indicator is shown. By default they are
+     * not retried.
+     */
+    public LoginKit setRetryPolicy(RetryPolicy retryPolicy) {
+        intent.putExtra(Constants.KEY_RETRY_POLICY, retryPolicy);
+        return this;
+    }
+
+    /**
+     * When enabled, the login screen is inflated on a background thread while the window animation runs. Widgets are
+     * then not replaced with their AppCompat versions, so tinting may differ below API 21. Disabled by default.
+     */
+    public LoginKit setAsyncInflation(boolean asyncInflation) {
+        intent.putExtra(Constants.KEY_ASYNC_INFLATION, asyncInflation);
+        return this;
+    }
+
+    /**
+     * When enabled, the login screen opens in sign-up mode. Users can switch between the modes either way. Disabled
+     * by default.
+     */
+    public LoginKit setRegisterMode(boolean registerMode) {
+        intent.putExtra(Constants.KEY_REGISTER_MODE, registerMode);
+        return this;
+    }
+
+    /**
+     * When enabled, {@link #logIn(ActivityHelper.OnSuccess)} skips the login screen if a user with a valid session is
+     * already cached on the device. If a server URI was set, the user must be logged into that server.
+     */
+    public LoginKit setResumeSession(boolean resumeSession) {
+        this.resumeSession = resumeSession;
+        return this;
+    }
+
+    /**
+     * Registers {@code metrics} to receive the phase timings of logins, replacing any previously registered one. It
+     * stays registered for all later logins of the process, not only the ones started by this builder. Passing
+     * {@code null} unregisters it.
+     */
+    public LoginKit setMetrics(LoginKitMetrics metrics) {
+        Metrics.setMetrics(metrics);
+        return this;
+    }
+
+    /**
+     * When enabled, every account that logs in is added to the {@link io.realm.realmloginkit.store.AccountRegistry},
+     * and the login screen offers to choose one of them. Choosing an account whose session is still valid logs in
+     * without a network call; otherwise its server and email address are filled in. Disabled by default.
+     */
+    public LoginKit setMultiAccount(boolean multiAccount) {
+        intent.putExtra(Constants.KEY_MULTI_ACCOUNT, multiAccount);
+        return this;
+    }
+
+    /**
+     * When enabled, a user who logged in online before can log in with the same server, email address and password
+     * while the server cannot be reached. The user cached on the device is returned right away, and the credentials
+     * are checked again once the device is online; failures go to the listener set with
+     * {@link OfflineLogin#setRevalidationListener(OfflineLogin.RevalidationListener)}. Disabled by default.
+     */
+    public LoginKit setOfflineLogin(boolean offlineLogin) {
+        intent.putExtra(Constants.KEY_OFFLINE_LOGIN, offlineLogin);
+        return this;
+    }
+
+    /**
+     * Opens the Realm configured by {@code factory} with {@code Realm.getInstanceAsync()} as soon as the user is
+     * logged in, while the login screen is closing, and passes it on through {@link LoginResult#getRealm()}. If
+     * {@code waitForRealm} is set, the login screen keeps showing its progress indicator until the Realm is open, e.g.
+     * to cover a configuration that waits for the initial download.
+     */
+    public LoginKit setRealmConfigurationFactory(RealmConfigurationFactory factory, boolean waitForRealm) {
+        this.realmConfigurationFactory = factory;
+        intent.putExtra(Constants.KEY_WAIT_FOR_REALM, waitForRealm);
+        return this;
+    }
+
     public void logIn() {
+        launch(null);
+    }
+
+    /**
+     * Same as {@link #logIn()}, but if session resuming is enabled and a valid user exists, {@code onSuccess} is
+     * called immediately and no activity is started. Otherwise the result is delivered as usual through
+     * {@link ActivityHelper#onActivityResult(int, int, Intent, ActivityHelper.OnSuccess)}.
+     */
+    public void logIn(ActivityHelper.OnSuccess onSuccess) {
+        if (findResumableUser() != null) {
+            onSuccess.onSuccess();
+            return;
+        }
+        logIn();
+    }
+
+    /**
+     * Shows the login screen and passes the logged in {@link SyncUser} straight to {@code callback}, without
+     * going through {@code onActivityResult()}. If session resuming is enabled and a valid user exists, the callback
+     * is called immediately instead.
+     *
+     * @return a token for {@link LoginResultChannel#unregister(int)}, or {@link LoginResultChannel#NO_TOKEN} if a
+     * session was resumed.
+     */
+    public int logIn(LoginResult.Callback callback) {
+        final SyncUser user = findResumableUser();
+        if (user != null) {
+            LoginResultChannel.deliver(LoginResultChannel.register(callback, realmConfigurationFactory), user, true, null);
+            return LoginResultChannel.NO_TOKEN;
+        }
+        return launch(callback);
+    }
+
+    private int launch(LoginResult.Callback callback) {
+        int token = LoginResultChannel.NO_TOKEN;
+        if (callback != null || realmConfigurationFactory != null) {
+            token = LoginResultChannel.register(callback, realmConfigurationFactory);
+        }
+        intent.putExtra(Constants.KEY_RESULT_TOKEN, token);
+        intent.putExtra(Constants.KEY_LAUNCHED_AT, Metrics.now());
         context.startActivityForResult(intent, Constants.REQUEST_CODE_LOGIN);
+        return token;
+    }
+
+    private SyncUser findResumableUser() {
+        if (!resumeSession) {
+            return null;
+        }
+        for (String serverUri : serverUris) {
+            final SyncUser user = SessionHelper.getValidUser(serverUri);
+            if (user != null) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads the stored credentials and the remembered accounts on a background thread, so that the login screen does
+     * not wait for storage when it opens. Call it early, e.g. from {@code Application.onCreate()}.
+     */
+    public static void prewarm(Context context) {
+        Prewarmer.prewarm(context);
+    }
+
+    /**
+     * Returns a {@link HeadlessLogin} to log in without showing the login screen.
+     */
+    public static HeadlessLogin headless(Context context) {
+        return new HeadlessLogin(context);
     }
 
     public static LoginKit loginKit(Activity context) {
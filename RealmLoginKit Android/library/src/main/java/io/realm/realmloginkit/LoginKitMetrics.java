@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+/**
+ * Receives the duration of each phase of a login, e.g. to forward it to your own telemetry. Register it with
+ * {@link LoginKit#setMetrics(LoginKitMetrics)}. Durations are measured with {@link System#nanoTime()}.
+ * <p>
+ * Methods are called on the main thread and should return quickly.
+ */
+public interface LoginKitMetrics {
+
+    enum Phase {
+        /**
+         * From {@link LoginKit#logIn()} to the first frame of the login screen.
+         */
+        FIRST_FRAME("LoginKit:firstFrame"),
+        /**
+         * Loading the remembered account.
+         */
+        CREDENTIALS_LOAD("LoginKit:credentialsLoad"),
+        /**
+         * Turning the entered server URL into the authentication URL.
+         */
+        URI_NORMALIZATION("LoginKit:uriNormalization"),
+        /**
+         * One authentication request to the server, reported once per attempt.
+         */
+        AUTH_REQUEST("LoginKit:authRequest"),
+        /**
+         * Handing the account to be remembered over to the credential store.
+         */
+        CREDENTIALS_PERSIST("LoginKit:credentialsPersist"),
+        /**
+         * From the login screen finishing to {@link ActivityHelper.OnSuccess#onSuccess()} returning.
+         */
+        RESULT_DELIVERY("LoginKit:resultDelivery");
+
+        final String sectionName;
+
+        Phase(String sectionName) {
+            this.sectionName = sectionName;
+        }
+    }
+
+    LoginKitMetrics NONE = new LoginKitMetrics() {
+        @Override
+        public void onPhaseCompleted(Phase phase, long durationNanos, AuthErrorCategory errorCategory) {
+        }
+    };
+
+    /**
+     * Called when a phase completes. {@code errorCategory} is only set for an {@link Phase#AUTH_REQUEST} that failed.
+     */
+    void onPhaseCompleted(Phase phase, long durationNanos, AuthErrorCategory errorCategory);
+}
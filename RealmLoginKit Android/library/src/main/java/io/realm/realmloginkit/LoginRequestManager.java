@@ -0,0 +1,344 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import io.realm.ErrorCode;
+import io.realm.ObjectServerError;
+import io.realm.RealmAsyncTask;
+import io.realm.SyncCredentials;
+import io.realm.SyncUser;
+import io.realm.realmloginkit.transport.AuthTransports;
+
+/**
+ * Runs login requests independently of the activity that started them, so that they survive configuration changes.
+ * Identical requests in flight share a single network call, which is only cancelled once every caller that started or
+ * joined it has cancelled. Callbacks are only referenced while attached, and a
+ * result that arrives while no callback is attached is kept until one is. Failed attempts are retried according to the
+ * {@link RetryPolicy} of the request; callbacks only see the final result. With several endpoints, the request goes to
+ * the one picked by the {@link EndpointSelector}, and fails over to the next one on connection-level errors.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+public class LoginRequestManager {
+    public static final int NO_REQUEST = -1;
+
+    private static LoginRequestManager instance;
+
+    private final Map<String, Request> requestsByKey = new HashMap<>();
+    private final Map<Integer, Request> requestsById = new HashMap<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+    private int nextId = 0;
+
+    private static final class Request implements SyncUser.Callback, Runnable, EndpointSelector.Callback {
+        private final LoginRequestManager manager;
+        private final int id;
+        private final String key;
+        private final SyncCredentials credentials;
+        private List<String> authUris;
+        private final RetryPolicy retryPolicy;
+        private final long startedAt = SystemClock.elapsedRealtime();
+        private final List<SyncUser.Callback> callbacks = new ArrayList<>();
+        // The callers that started or joined the request and have not cancelled it.
+        private int owners = 1;
+        private RealmAsyncTask task;
+        private int attempt;
+        private boolean isAttemptRunning;
+        private int failedAttempts;
+        private long attemptStartedAt;
+        private int endpointIndex;
+        private boolean isCancelled;
+        private boolean isDone;
+        private SyncUser user;
+        private ObjectServerError error;
+        private final Runnable deadline = new Runnable() {
+            @Override
+            public void run() {
+                expire();
+            }
+        };
+
+        private Request(LoginRequestManager manager, int id, String key, SyncCredentials credentials, List<String> authUris, RetryPolicy retryPolicy) {
+            this.manager = manager;
+            this.id = id;
+            this.key = key;
+            this.credentials = credentials;
+            this.authUris = authUris;
+            this.retryPolicy = retryPolicy;
+        }
+
+        private void start() {
+            if (retryPolicy.getDeadlineMs() != RetryPolicy.NO_DEADLINE) {
+                manager.handler.postDelayed(deadline, retryPolicy.getDeadlineMs());
+            }
+            if (authUris.size() == 1) {
+                run();
+            } else {
+                EndpointSelector.getInstance().select(authUris, this);
+            }
+        }
+
+        @Override
+        public void onSelected(List<String> authUris) {
+            // The deadline may have passed while the endpoints were probed.
+            if (isDone || isCancelled) {
+                return;
+            }
+            this.authUris = authUris;
+            run();
+        }
+
+        // Starts an attempt. Also run by the handler when a retry is due.
+        @Override
+        public void run() {
+            attemptStartedAt = Metrics.now();
+            final int attempt = ++this.attempt;
+            isAttemptRunning = true;
+            final RealmAsyncTask task = AuthTransports.getDefault().logIn(credentials, authUris.get(endpointIndex), this);
+            // A transport may call back before logIn() returns, and a failover or retry may have started another
+            // attempt from that callback. Only a task that is still running can be cancelled.
+            if (attempt == this.attempt && isAttemptRunning) {
+                this.task = task;
+            }
+        }
+
+        @Override
+        public void onSuccess(SyncUser user) {
+            if (isDone || isCancelled) {
+                return;
+            }
+            isAttemptRunning = false;
+            Metrics.report(LoginKitMetrics.Phase.AUTH_REQUEST, attemptStartedAt, null);
+            this.user = user;
+            complete();
+        }
+
+        @Override
+        public void onError(ObjectServerError error) {
+            if (isDone || isCancelled) {
+                return;
+            }
+            isAttemptRunning = false;
+            task = null;
+            failedAttempts++;
+            final AuthErrorCategory category = AuthErrorCategory.of(error);
+            Metrics.report(LoginKitMetrics.Phase.AUTH_REQUEST, attemptStartedAt, category);
+            if (category == AuthErrorCategory.NETWORK && endpointIndex + 1 < authUris.size()) {
+                EndpointSelector.getInstance().reportFailover(authUris.get(endpointIndex), authUris.get(endpointIndex + 1));
+                endpointIndex++;
+                run();
+                return;
+            }
+            final long delay = retryPolicy.getRetryDelayMs(category, failedAttempts,
+                    SystemClock.elapsedRealtime() - startedAt, manager.random);
+            if (delay >= 0) {
+                // Each retry starts over with the fastest endpoint.
+                endpointIndex = 0;
+                manager.handler.postDelayed(this, delay);
+                return;
+            }
+            this.error = error;
+            complete();
+        }
+
+        // Gives up when the deadline passes, including on the attempt that is still running.
+        private void expire() {
+            if (isDone || isCancelled) {
+                return;
+            }
+            manager.handler.removeCallbacks(this);
+            if (task != null) {
+                task.cancel();
+            }
+            isAttemptRunning = false;
+            error = new ObjectServerError(ErrorCode.IO_EXCEPTION, "The login did not finish within " + retryPolicy.getDeadlineMs() + " ms");
+            complete();
+        }
+
+        private void complete() {
+            isDone = true;
+            task = null;
+            manager.handler.removeCallbacks(deadline);
+            if (!callbacks.isEmpty()) {
+                manager.deliver(this);
+            }
+        }
+    }
+
+    private LoginRequestManager() {
+    }
+
+    public static LoginRequestManager getInstance() {
+        if (instance == null) {
+            instance = new LoginRequestManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a login, or joins the identical one already in flight, and returns its id.
+     */
+    public int logIn(String authUri, String username, String password, boolean createUser) {
+        return logIn(authUri, username, password, createUser, RetryPolicy.NONE);
+    }
+
+    /**
+     * Same as {@link #logIn(String, String, String, boolean)}, retrying failed attempts according to
+     * {@code retryPolicy}. A request that is joined keeps its own policy.
+     */
+    public int logIn(String authUri, String username, String password, boolean createUser, RetryPolicy retryPolicy) {
+        return logIn(Collections.singletonList(authUri), username, password, createUser, retryPolicy);
+    }
+
+    /**
+     * Same as {@link #logIn(String, String, String, boolean, RetryPolicy)}, picking one of {@code authUris} with the
+     * {@link EndpointSelector} and failing over to the others on connection-level errors.
+     */
+    public int logIn(List<String> authUris, String username, String password, boolean createUser, RetryPolicy retryPolicy) {
+        final String key = getKey(authUris, username, password, createUser);
+        Request request = requestsByKey.get(key);
+        if (request != null && !request.isDone) {
+            request.owners++;
+            return request.id;
+        }
+        final SyncCredentials credentials = SyncCredentials.usernamePassword(username, password, createUser);
+        request = new Request(this, nextId++, key, credentials, authUris, retryPolicy);
+        requestsByKey.put(key, request);
+        requestsById.put(request.id, request);
+        request.start();
+        return request.id;
+    }
+
+    /**
+     * Returns whether the request exists and its result has not been delivered yet.
+     */
+    public boolean isPending(int requestId) {
+        return requestsById.containsKey(requestId);
+    }
+
+    /**
+     * Registers {@code callback} for the result of the request. If the result already arrived, it is delivered
+     * immediately.
+     */
+    public void attach(int requestId, SyncUser.Callback callback) {
+        final Request request = requestsById.get(requestId);
+        if (request == null) {
+            return;
+        }
+        if (!request.callbacks.contains(callback)) {
+            request.callbacks.add(callback);
+        }
+        if (request.isDone) {
+            deliver(request);
+        }
+    }
+
+    /**
+     * Unregisters {@code callback} without cancelling the request, e.g. when an activity is recreated.
+     */
+    public void detach(int requestId, SyncUser.Callback callback) {
+        final Request request = requestsById.get(requestId);
+        if (request != null) {
+            request.callbacks.remove(callback);
+        }
+    }
+
+    /**
+     * Gives up the caller's share of the request and detaches {@code callback}. The network call and any pending retry
+     * are only cancelled when no other caller that started or joined the request is left. Callbacks that are still
+     * attached then get an error, so that nobody waits for a result that will not come.
+     */
+    public void cancel(int requestId, SyncUser.Callback callback) {
+        final Request request = requestsById.get(requestId);
+        if (request == null) {
+            return;
+        }
+        request.callbacks.remove(callback);
+        if (--request.owners > 0) {
+            return;
+        }
+        if (request.isDone) {
+            // The result arrived while nothing was attached, and nobody wants it any more.
+            remove(request);
+            return;
+        }
+        request.isCancelled = true;
+        handler.removeCallbacks(request);
+        handler.removeCallbacks(request.deadline);
+        if (request.task != null) {
+            request.task.cancel();
+            request.task = null;
+        }
+        request.error = new ObjectServerError(ErrorCode.UNKNOWN, "The login was cancelled");
+        deliver(request);
+    }
+
+    private void deliver(Request request) {
+        remove(request);
+        final List<SyncUser.Callback> callbacks = new ArrayList<>(request.callbacks);
+        request.callbacks.clear();
+        for (SyncUser.Callback callback : callbacks) {
+            if (request.error == null) {
+                callback.onSuccess(request.user);
+            } else {
+                callback.onError(request.error);
+            }
+        }
+    }
+
+    // Hashed, so that the password is not kept in the map for as long as the request runs.
+    private static String getKey(List<String> authUris, String username, String password, boolean createUser) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] hash;
+        try {
+            hash = digest.digest((authUris + "\n" + createUser + '\n' + username + '\n' + password).getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        final StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return key.toString();
+    }
+
+    private void remove(Request request) {
+        requestsById.remove(request.id);
+        if (requestsByKey.get(request.key) == request) {
+            requestsByKey.remove(request.key);
+        }
+    }
+}
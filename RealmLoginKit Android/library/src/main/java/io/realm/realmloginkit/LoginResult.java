@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import io.realm.Realm;
+import io.realm.SyncUser;
+
+/**
+ * The outcome of a successful {@link LoginKit#logIn(LoginResult.Callback)}.
+ */
+public final class LoginResult {
+
+    public interface Callback {
+        /**
+         * Called on the main thread with the logged in user.
+         */
+        void onLoggedIn(LoginResult result);
+
+        /**
+         * Called on the main thread when the user left the login screen without logging in.
+         */
+        void onCancelled();
+    }
+
+    private final SyncUser user;
+    private final Realm realm;
+    private final long durationMs;
+    private final boolean isSessionResumed;
+
+    LoginResult(SyncUser user, Realm realm, long durationMs, boolean isSessionResumed) {
+        this.user = user;
+        this.realm = realm;
+        this.durationMs = durationMs;
+        this.isSessionResumed = isSessionResumed;
+    }
+
+    public SyncUser getUser() {
+        return user;
+    }
+
+    /**
+     * Returns the Realm opened on the main thread with the configuration from the
+     * {@link RealmConfigurationFactory}, which the caller must close. Returns {@code null} if no factory was set,
+     * the Realm could not be opened, or the login screen was left before it was open.
+     */
+    public Realm getRealm() {
+        return realm;
+    }
+
+    /**
+     * Returns the time from the {@code logIn} call to the result, including the time the user spent on the login
+     * screen.
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * Returns whether a cached session was resumed, so the login screen was not shown.
+     */
+    public boolean isSessionResumed() {
+        return isSessionResumed;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.security.SecureRandom;
+
+import io.realm.Realm;
+import io.realm.RealmAsyncTask;
+import io.realm.SyncUser;
+
+/**
+ * Hands the result of the login screen to the {@link LoginResult.Callback} passed to
+ * {@link LoginKit#logIn(LoginResult.Callback)}, within the process. If a {@link RealmConfigurationFactory} was set,
+ * the user's Realm is opened asynchronously first. Callbacks are dropped as soon as they are called, so nothing they
+ * reference outlives the login. If the process dies while the login screen is shown, the callback is lost; the result
+ * code still reaches {@code onActivityResult()}. Tokens start at a random value in each process, so that a login
+ * screen restored after the process died does not deliver to a callback registered by the new process.
+ * <p>
+ * A login screen that waits for the Realm to open passes a {@code Runnable} to run when it is open, and like with
+ * {@link LoginRequestManager}, detaches it while it is recreated and attaches it again afterwards.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+public class LoginResultChannel {
+    public static final int NO_TOKEN = -1;
+    private static final String TAG = "LoginKit";
+
+    private static final SparseArray<Entry> entries = new SparseArray<>();
+    private static int nextToken = new SecureRandom().nextInt() & Integer.MAX_VALUE;
+
+    private static final class Entry {
+        private LoginResult.Callback callback;
+        private final RealmConfigurationFactory realmConfigurationFactory;
+        private final long registeredAt;
+        // Set while the Realm is being opened.
+        private SyncUser user;
+        private boolean isSessionResumed;
+        private RealmAsyncTask openTask;
+        private Runnable onDelivered;
+        // Whether a login screen waits for the open, which keeps the entry until it attached again.
+        private boolean isAwaited;
+        private boolean isDelivered;
+
+        private Entry(LoginResult.Callback callback, RealmConfigurationFactory realmConfigurationFactory, long registeredAt) {
+            this.callback = callback;
+            this.realmConfigurationFactory = realmConfigurationFactory;
+            this.registeredAt = registeredAt;
+        }
+    }
+
+    /**
+     * Either argument may be {@code null}. Without a callback, a Realm that is opened is closed again right away,
+     * which still gets its initial data downloaded ahead of the host's own {@code Realm.getInstance()}.
+     */
+    static int register(LoginResult.Callback callback, RealmConfigurationFactory realmConfigurationFactory) {
+        final int token = nextToken;
+        // Wraps around within the non-negative range, which never contains NO_TOKEN.
+        nextToken = (nextToken + 1) & Integer.MAX_VALUE;
+        entries.put(token, new Entry(callback, realmConfigurationFactory, Metrics.now()));
+        return token;
+    }
+
+    /**
+     * Drops the callback without calling it, e.g. when the component that registered it is destroyed. A Realm that
+     * is being opened is closed once it is open.
+     */
+    public static void unregister(int token) {
+        final Entry entry = entries.get(token);
+        if (entry == null) {
+            return;
+        }
+        if (entry.openTask != null || entry.isDelivered) {
+            // A login screen may still wait for the open.
+            entry.callback = null;
+        } else {
+            entries.remove(token);
+        }
+    }
+
+    /**
+     * Delivers {@code user}, after opening its Realm if there is a {@link RealmConfigurationFactory}, and then runs
+     * {@code onDelivered}, which may be {@code null}. If it is not {@code null}, it can be detached and attached again
+     * while the Realm is opened.
+     */
+    public static void deliver(int token, SyncUser user, Runnable onDelivered) {
+        deliver(token, user, false, onDelivered);
+    }
+
+    static void deliver(final int token, SyncUser user, boolean isSessionResumed, Runnable onDelivered) {
+        final Entry entry = entries.get(token);
+        if (entry == null || entry.realmConfigurationFactory == null) {
+            entries.remove(token);
+            if (entry != null && entry.callback != null) {
+                entry.callback.onLoggedIn(new LoginResult(user, null, getDurationMs(entry), isSessionResumed));
+            }
+            if (onDelivered != null) {
+                onDelivered.run();
+            }
+            return;
+        }
+        entry.user = user;
+        entry.isSessionResumed = isSessionResumed;
+        entry.onDelivered = onDelivered;
+        entry.isAwaited = onDelivered != null;
+        entry.openTask = Realm.getInstanceAsync(entry.realmConfigurationFactory.create(user), new Realm.Callback() {
+            @Override
+            public void onSuccess(Realm realm) {
+                if (entries.get(token) != entry) {
+                    // Cancelled, and the user was delivered without the Realm.
+                    realm.close();
+                    return;
+                }
+                completeOpen(token, entry, realm);
+            }
+
+            @Override
+            public void onError(Throwable exception) {
+                if (entries.get(token) != entry) {
+                    return;
+                }
+                Log.w(TAG, "Could not open the Realm of the logged in user", exception);
+                completeOpen(token, entry, null);
+            }
+        });
+    }
+
+    /**
+     * Returns whether the user's Realm is being opened for the login screen with {@code token}, or was opened while
+     * no login screen was attached.
+     */
+    public static boolean isPending(int token) {
+        final Entry entry = entries.get(token);
+        return entry != null && (entry.openTask != null || entry.isDelivered);
+    }
+
+    /**
+     * Sets what runs once the Realm is open, replacing the {@code onDelivered} passed to
+     * {@link #deliver(int, SyncUser, Runnable)}. If it is open already, {@code onDelivered} runs immediately.
+     */
+    public static void attach(int token, Runnable onDelivered) {
+        final Entry entry = entries.get(token);
+        if (entry == null) {
+            return;
+        }
+        if (entry.isDelivered) {
+            entries.remove(token);
+            onDelivered.run();
+        } else if (entry.openTask != null) {
+            entry.onDelivered = onDelivered;
+        }
+    }
+
+    /**
+     * Forgets the {@code onDelivered} of a pending open without cancelling it, e.g. when an activity is recreated.
+     */
+    public static void detach(int token) {
+        final Entry entry = entries.get(token);
+        if (entry != null) {
+            entry.onDelivered = null;
+        }
+    }
+
+    /**
+     * Tells the callback that the login screen was left without logging in. Does nothing if the result was already
+     * delivered. If the user's Realm is still being opened, the open is cancelled instead, and the user is delivered
+     * without it; {@code onDelivered} is not run.
+     */
+    public static void cancel(int token) {
+        final Entry entry = take(token);
+        if (entry == null) {
+            return;
+        }
+        final LoginResult.Callback callback = entry.callback;
+        entry.callback = null;
+        if (entry.openTask != null) {
+            entry.openTask.cancel();
+            entry.openTask = null;
+            if (callback != null) {
+                callback.onLoggedIn(new LoginResult(entry.user, null, getDurationMs(entry), entry.isSessionResumed));
+            }
+        } else if (callback != null && !entry.isDelivered) {
+            callback.onCancelled();
+        }
+    }
+
+    private static void completeOpen(int token, Entry entry, Realm realm) {
+        entry.openTask = null;
+        final LoginResult.Callback callback = entry.callback;
+        entry.callback = null;
+        if (callback != null) {
+            callback.onLoggedIn(new LoginResult(entry.user, realm, getDurationMs(entry), entry.isSessionResumed));
+        } else if (realm != null) {
+            realm.close();
+        }
+        entry.user = null;
+        final Runnable onDelivered = entry.onDelivered;
+        if (onDelivered == null && entry.isAwaited) {
+            // The login screen is being recreated, and finishes once it attached again.
+            entry.isDelivered = true;
+            return;
+        }
+        entries.remove(token);
+        if (onDelivered != null) {
+            onDelivered.run();
+        }
+    }
+
+    private static long getDurationMs(Entry entry) {
+        return (Metrics.now() - entry.registeredAt) / 1000000;
+    }
+
+    private static Entry take(int token) {
+        final Entry entry = entries.get(token);
+        entries.remove(token);
+        return entry;
+    }
+}
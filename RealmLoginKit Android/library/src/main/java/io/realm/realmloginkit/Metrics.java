@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.support.v4.os.TraceCompat;
+
+/**
+ * Reports phase timings to the registered {@link LoginKitMetrics} and marks them as {@link android.os.Trace}
+ * sections. A trace section must begin and end in the same call, so phases that end in a later callback are only
+ * reported.
+ */
+public final class Metrics {
+    private static volatile LoginKitMetrics metrics = LoginKitMetrics.NONE;
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers {@code metrics} to receive the phase timings of all logins in the process, replacing any previously
+     * registered one. Passing {@code null} unregisters it.
+     */
+    public static void setMetrics(LoginKitMetrics metrics) {
+        Metrics.metrics = metrics != null ? metrics : LoginKitMetrics.NONE;
+    }
+
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Starts a phase that ends on the same thread in the same call, and returns its start time for
+     * {@link #endSection(LoginKitMetrics.Phase, long)}.
+     */
+    public static long beginSection(LoginKitMetrics.Phase phase) {
+        TraceCompat.beginSection(phase.sectionName);
+        return System.nanoTime();
+    }
+
+    public static void endSection(LoginKitMetrics.Phase phase, long startedAt) {
+        TraceCompat.endSection();
+        report(phase, startedAt, null);
+    }
+
+    /**
+     * Reports a phase that started at {@code startedAt}, a value of {@link #now()}.
+     */
+    public static void report(LoginKitMetrics.Phase phase, long startedAt, AuthErrorCategory errorCategory) {
+        final LoginKitMetrics metrics = Metrics.metrics;
+        if (metrics != LoginKitMetrics.NONE) {
+            metrics.onPhaseCompleted(phase, System.nanoTime() - startedAt, errorCategory);
+        }
+    }
+}
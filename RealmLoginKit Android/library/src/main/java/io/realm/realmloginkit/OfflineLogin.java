@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+import android.util.Log;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import io.realm.ObjectServerError;
+import io.realm.SyncUser;
+import io.realm.realmloginkit.util.Constants;
+
+/**
+ * Lets a user who logged in before enter while the server cannot be reached, with the {@link SyncUser} that is still
+ * cached on the device. Realm syncs the user's data once the device is back online. The credentials are then checked
+ * against the server again, and a failure is reported to the {@link RevalidationListener}.
+ * <p>
+ * Each successful login records the user's identity and a salted hash of the password, keyed by authentication URL
+ * and email address, so that finding a cached user is a single map lookup and never touches the network. Hashing
+ * runs on a background thread. Pending revalidations live in memory only and are dropped if the process dies.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+public class OfflineLogin {
+    private static final String TAG = "LoginKit";
+    private static final int HASH_ITERATIONS = 2000;
+    private static final int HASH_LENGTH_BITS = 256;
+    private static final int SALT_LENGTH = 16;
+
+    public interface RevalidationListener {
+        /**
+         * Called on the main thread when the server rejected the credentials of a user who entered offline. The user
+         * is not logged out; that is up to the app.
+         */
+        void onRevalidationFailed(SyncUser user, ObjectServerError error);
+    }
+
+    public interface FindCallback {
+        /**
+         * Called on the main thread.
+         *
+         * @param user the valid user cached for the credentials, or {@code null} if there is none.
+         * @param authUri the authentication URL the user was found for, or {@code null}.
+         */
+        void onFound(SyncUser user, String authUri);
+    }
+
+    private static final class Account {
+        private final String authUri;
+        private final String emailAddress;
+        private final String password;
+        private final SyncUser user;
+
+        private Account(String authUri, String emailAddress, String password, SyncUser user) {
+            this.authUri = authUri;
+            this.emailAddress = emailAddress;
+            this.password = password;
+            this.user = user;
+        }
+    }
+
+    private static final Executor hashExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Map<String, Account> pending = new HashMap<>();
+    private static RevalidationListener listener;
+    private static BroadcastReceiver connectivityReceiver;
+
+    /**
+     * Registers {@code listener} to be told when a user who logged in offline fails to log in again once online. It
+     * is process-wide, since revalidation outlives the login screen. Passing {@code null} unregisters it.
+     */
+    public static void setRevalidationListener(RevalidationListener listener) {
+        OfflineLogin.listener = listener;
+    }
+
+    public static boolean isOnline(Context context) {
+        final ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        final NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    /**
+     * Remembers that {@code user} logged in with these credentials. The password hash is computed and written in
+     * the background.
+     */
+    public static void record(Context context, final String authUri, final String emailAddress, final String password, SyncUser user) {
+        final SharedPreferences sharedPreferences = getSharedPreferences(context);
+        final String identity = user.getIdentity();
+        hashExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final byte[] salt = new byte[SALT_LENGTH];
+                new SecureRandom().nextBytes(salt);
+                try {
+                    final String value = identity + '\n' + Base64.encodeToString(salt, Base64.NO_WRAP) + '\n'
+                            + Base64.encodeToString(hash(password, salt), Base64.NO_WRAP);
+                    sharedPreferences.edit().putString(getKey(authUri, emailAddress), value).apply();
+                } catch (GeneralSecurityException e) {
+                    Log.w(TAG, "Could not hash the password, offline login will not be available", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Looks for the valid user cached on the device for these credentials, trying {@code authUris} in order, and
+     * passes it to {@code callback}. A user is only found if the password matches the one of the last online login.
+     * The password is hashed in the background, after any hashing started by {@link #record}.
+     */
+    public static void find(Context context, final List<String> authUris, final String emailAddress, final String password,
+                            final FindCallback callback) {
+        final SharedPreferences sharedPreferences = getSharedPreferences(context);
+        hashExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<String> identities = new ArrayList<>(authUris.size());
+                for (String authUri : authUris) {
+                    identities.add(findIdentity(sharedPreferences, authUri, emailAddress, password));
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < authUris.size(); i++) {
+                            final SyncUser user = identities.get(i) != null ? SyncUser.all().get(identities.get(i)) : null;
+                            if (user != null && user.isValid()) {
+                                callback.onFound(user, authUris.get(i));
+                                return;
+                            }
+                        }
+                        callback.onFound(null, null);
+                    }
+                });
+            }
+        });
+    }
+
+    // Returns the identity of the user recorded for these credentials, or null if there is none or the password does
+    // not match. Runs on the hash executor.
+    private static String findIdentity(SharedPreferences sharedPreferences, String authUri, String emailAddress, String password) {
+        final String value = sharedPreferences.getString(getKey(authUri, emailAddress), null);
+        if (value == null) {
+            return null;
+        }
+        final String[] parts = value.split("\n");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            final byte[] expectedHash = Base64.decode(parts[2], Base64.NO_WRAP);
+            if (!MessageDigest.isEqual(expectedHash, hash(password, Base64.decode(parts[1], Base64.NO_WRAP)))) {
+                return null;
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            Log.w(TAG, "Could not check the password for offline login", e);
+            return null;
+        }
+        return parts[0];
+    }
+
+    /**
+     * Checks the credentials against the server on the next change to a connected network. The login that failed just
+     * before did so for a connection-level reason, so it is not retried while the connectivity stays the same.
+     */
+    public static void revalidate(Context context, String authUri, String emailAddress, String password, SyncUser user) {
+        final Context appContext = context.getApplicationContext();
+        pending.put(getKey(authUri, emailAddress), new Account(authUri, emailAddress, password, user));
+        if (connectivityReceiver == null) {
+            connectivityReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    // The last connectivity broadcast is replayed on registration; it is not a change.
+                    if (!isInitialStickyBroadcast() && isOnline(appContext)) {
+                        revalidatePending(appContext);
+                    }
+                }
+            };
+            appContext.registerReceiver(connectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+        }
+    }
+
+    private static void revalidatePending(final Context context) {
+        final LoginRequestManager loginRequestManager = LoginRequestManager.getInstance();
+        for (final Account account : new ArrayList<>(pending.values())) {
+            final int requestId = loginRequestManager.logIn(account.authUri, account.emailAddress, account.password, false);
+            loginRequestManager.attach(requestId, new SyncUser.Callback() {
+                @Override
+                public void onSuccess(SyncUser user) {
+                    remove(context, account);
+                }
+
+                @Override
+                public void onError(ObjectServerError error) {
+                    // Connection problems are retried on the next connectivity change.
+                    if (AuthErrorCategory.of(error) == AuthErrorCategory.NETWORK) {
+                        return;
+                    }
+                    remove(context, account);
+                    getSharedPreferences(context).edit().remove(getKey(account.authUri, account.emailAddress)).apply();
+                    if (listener != null) {
+                        listener.onRevalidationFailed(account.user, error);
+                    }
+                }
+            });
+        }
+    }
+
+    private static void remove(Context context, Account account) {
+        final String key = getKey(account.authUri, account.emailAddress);
+        if (pending.get(key) == account) {
+            pending.remove(key);
+        }
+        if (pending.isEmpty() && connectivityReceiver != null) {
+            context.unregisterReceiver(connectivityReceiver);
+            connectivityReceiver = null;
+        }
+    }
+
+    private static byte[] hash(String password, byte[] salt) throws GeneralSecurityException {
+        final PBEKeySpec keySpec = new PBEKeySpec(password.toCharArray(), salt, HASH_ITERATIONS, HASH_LENGTH_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(keySpec).getEncoded();
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+
+    private static String getKey(String authUri, String emailAddress) {
+        return authUri + '\n' + emailAddress;
+    }
+
+    private static SharedPreferences getSharedPreferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(Constants.OFFLINE_SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import io.realm.realmloginkit.store.AccountRegistry;
+import io.realm.realmloginkit.store.BackgroundCredentialStore;
+import io.realm.realmloginkit.store.CredentialStore;
+import io.realm.realmloginkit.store.CredentialStores;
+
+/**
+ * Loads the stored credentials and accounts ahead of time. See {@link LoginKit#prewarm(Context)}. The
+ * {@link CredentialStore} and the {@link AccountRegistry} keep what they loaded in memory, so the login screen takes
+ * them without reading storage. Nothing else is warmed: a DNS lookup expires from the resolver cache within seconds,
+ * and views inflated ahead of time cannot be handed to an activity, which must create its own.
+ * <p>
+ * Timings are logged at debug level, which is enabled with {@code adb shell setprop log.tag.LoginKit DEBUG}.
+ */
+public class Prewarmer {
+    private static final String TAG = "LoginKit";
+    private static final long FRESHNESS_MS = 5 * 60 * 1000;
+
+    private static final Object lock = new Object();
+    private static long completedAt = -1;
+
+    public static void prewarm(Context context) {
+        final Context appContext = context.getApplicationContext();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                warmUp(appContext);
+            }
+        }, "LoginKitPrewarm");
+        thread.start();
+    }
+
+    private static void warmUp(Context context) {
+        final long start = SystemClock.elapsedRealtime();
+
+        final CredentialStore credentialStore = CredentialStores.getDefault(context);
+        credentialStore.preload();
+        if (credentialStore instanceof BackgroundCredentialStore) {
+            try {
+                ((BackgroundCredentialStore) credentialStore).awaitLoaded();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        final long credentialsLoaded = SystemClock.elapsedRealtime();
+        AccountRegistry.getInstance(context).getAccounts();
+        final long end = SystemClock.elapsedRealtime();
+
+        synchronized (lock) {
+            completedAt = end;
+        }
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, String.format("Prewarm done in %d ms (credentials %d ms, accounts %d ms)",
+                    end - start, credentialsLoaded - start, end - credentialsLoaded));
+        }
+    }
+
+    /**
+     * Returns whether a prewarm finished recently enough for the login screen to benefit from it. It is only used to
+     * label the logged timings.
+     */
+    public static boolean isWarm() {
+        synchronized (lock) {
+            return completedAt >= 0 && SystemClock.elapsedRealtime() - completedAt < FRESHNESS_MS;
+        }
+    }
+
+    /**
+     * Logs the time from {@code startedAt} ({@link SystemClock#elapsedRealtime()}) until the layout of
+     * {@code activity} has been inflated, so the effect of prewarming can be compared.
+     */
+    public static void logInflateTime(Activity activity, long startedAt, boolean isAsync) {
+        if (!Log.isLoggable(TAG, Log.DEBUG)) {
+            return;
+        }
+        Log.d(TAG, String.format("%s layout ready after %d ms (async: %b, prewarmed: %b)", activity.getClass().getSimpleName(),
+                SystemClock.elapsedRealtime() - startedAt, isAsync, isWarm()));
+    }
+
+    /**
+     * Logs the time to the first draw of {@code activity}, and reports it as {@link LoginKitMetrics.Phase#FIRST_FRAME}
+     * measured from {@code launchedAt}, a value of {@link Metrics#now()}.
+     */
+    public static void logTimeToFirstDraw(Activity activity, final long startedAt, final long launchedAt) {
+        final boolean isLoggable = Log.isLoggable(TAG, Log.DEBUG);
+        final String screen = activity.getClass().getSimpleName();
+        final boolean isWarm = isLoggable && isWarm();
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (isLoggable) {
+                    Log.d(TAG, String.format("%s first draw after %d ms (prewarmed: %b)", screen, SystemClock.elapsedRealtime() - startedAt, isWarm));
+                }
+                Metrics.report(LoginKitMetrics.Phase.FIRST_FRAME, launchedAt, null);
+                return true;
+            }
+        });
+    }
+}
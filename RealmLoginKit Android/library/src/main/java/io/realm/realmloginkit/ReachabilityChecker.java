@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import io.realm.realmloginkit.util.UriHelper;
+
+/**
+ * Checks whether the server typed into the login screen can be reached, while the user is typing. A check starts only
+ * after the text stopped changing for {@link #DEBOUNCE_MS}, and a new text cancels both a pending check and a probe
+ * in flight, so at most one probe runs per checker. Results are kept per normalized endpoint in a small LRU cache
+ * shared by all checkers, so retyping an address or recreating the screen does not probe again within
+ * {@link #TTL_MS}.
+ * <p>
+ * All methods must be called from the main thread, and the listener is called on it.
+ */
+public class ReachabilityChecker {
+    static final long DEBOUNCE_MS = 500;
+    static final long TTL_MS = 30 * 1000;
+    private static final int PROBE_TIMEOUT_MS = 3000;
+    private static final int CACHE_SIZE = 16;
+
+    public enum State {
+        /**
+         * Nothing to check, e.g. the field is empty or the address is malformed.
+         */
+        UNKNOWN,
+        CHECKING,
+        REACHABLE,
+        UNREACHABLE
+    }
+
+    public interface Listener {
+        void onReachabilityChanged(State state);
+    }
+
+    private static final class Result {
+        private final boolean isReachable;
+        private final long checkedAt;
+
+        private Result(boolean isReachable, long checkedAt) {
+            this.isReachable = isReachable;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    private static final Map<String, Result> cache = new LinkedHashMap<String, Result>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static final ExecutorService probeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "LoginKitReachability");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Listener listener;
+    private Runnable pendingCheck;
+    private ServerProbe probe;
+
+    public ReachabilityChecker(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules a check of {@code serverUri}, replacing any check that is pending or running.
+     */
+    public void check(String serverUri) {
+        cancel();
+        final String authUri;
+        try {
+            authUri = serverUri.trim().isEmpty() ? null : UriHelper.getValidAuthUri(serverUri);
+        } catch (IllegalArgumentException e) {
+            // A malformed port or IPv6 address, while it is still being typed.
+            listener.onReachabilityChanged(State.UNKNOWN);
+            return;
+        }
+        if (authUri == null) {
+            listener.onReachabilityChanged(State.UNKNOWN);
+            return;
+        }
+        final Result cached = cache.get(authUri);
+        if (cached != null && now() - cached.checkedAt < TTL_MS) {
+            listener.onReachabilityChanged(cached.isReachable ? State.REACHABLE : State.UNREACHABLE);
+            return;
+        }
+        pendingCheck = new Runnable() {
+            @Override
+            public void run() {
+                pendingCheck = null;
+                startProbe(authUri);
+            }
+        };
+        handler.postDelayed(pendingCheck, DEBOUNCE_MS);
+    }
+
+    /**
+     * Cancels the pending check and the probe in flight, if any. The listener is not called for them.
+     */
+    public void cancel() {
+        if (pendingCheck != null) {
+            handler.removeCallbacks(pendingCheck);
+            pendingCheck = null;
+        }
+        if (probe != null) {
+            probe.cancel();
+            probe = null;
+        }
+    }
+
+    private void startProbe(final String authUri) {
+        final ServerProbe probe = new ServerProbe();
+        this.probe = probe;
+        listener.onReachabilityChanged(State.CHECKING);
+        probeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final boolean isReachable = probe.measureLatency(authUri, PROBE_TIMEOUT_MS) != ServerProbe.UNREACHABLE;
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // A cancelled probe also fails, which must not be cached or reported.
+                        if (ReachabilityChecker.this.probe != probe) {
+                            return;
+                        }
+                        ReachabilityChecker.this.probe = null;
+                        cache.put(authUri, new Result(isReachable, now()));
+                        listener.onReachabilityChanged(isReachable ? State.REACHABLE : State.UNREACHABLE);
+                    }
+                });
+            }
+        });
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+}
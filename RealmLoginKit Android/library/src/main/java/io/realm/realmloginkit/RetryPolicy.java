@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Describes how failed authentication requests are retried: up to {@code maxAttempts} attempts in total, with an
+ * exponentially growing, jittered delay between them, as long as the error is retryable and the overall deadline has
+ * not passed.
+ */
+public final class RetryPolicy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    public static final RetryPolicy NONE = new Builder().setMaxAttempts(1).setDeadlineMs(NO_DEADLINE).build();
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final double jitter;
+    private final long deadlineMs;
+    private final EnumSet<AuthErrorCategory> retryableCategories;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayMs = builder.baseDelayMs;
+        this.maxDelayMs = builder.maxDelayMs;
+        this.jitter = builder.jitter;
+        this.deadlineMs = builder.deadlineMs;
+        this.retryableCategories = EnumSet.copyOf(builder.retryableCategories);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public boolean isRetryable(AuthErrorCategory category) {
+        return retryableCategories.contains(category);
+    }
+
+    /**
+     * Returns the delay before the attempt following {@code failedAttempts} failures, or {@code -1} if no further
+     * attempt should be made.
+     *
+     * @param elapsedMs the time since the first attempt started.
+     */
+    public long getRetryDelayMs(AuthErrorCategory category, int failedAttempts, long elapsedMs, Random random) {
+        if (failedAttempts >= maxAttempts || !isRetryable(category)) {
+            return -1;
+        }
+        final int exponent = failedAttempts - 1;
+        // Shifting by less than the leading zeros minus one cannot overflow; beyond that the cap is reached anyway.
+        final long delay = exponent >= Long.numberOfLeadingZeros(baseDelayMs) - 1
+                ? maxDelayMs : Math.min(maxDelayMs, baseDelayMs << exponent);
+        final long jittered = delay - (long) (delay * jitter * random.nextDouble());
+        if (elapsedMs + jittered >= deadlineMs) {
+            return -1;
+        }
+        return jittered;
+    }
+
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private long baseDelayMs = 500;
+        private long maxDelayMs = 8000;
+        private double jitter = 0.5;
+        private long deadlineMs = 30000;
+        private Set<AuthErrorCategory> retryableCategories = EnumSet.of(AuthErrorCategory.NETWORK);
+
+        /**
+         * Sets the total number of attempts, including the first one.
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the delay before the first retry. It doubles for every following retry, up to {@code maxDelayMs}.
+         */
+        public Builder setDelayMs(long baseDelayMs, long maxDelayMs) {
+            if (baseDelayMs < 0 || maxDelayMs < baseDelayMs) {
+                throw new IllegalArgumentException("Invalid delays: " + baseDelayMs + ", " + maxDelayMs);
+            }
+            this.baseDelayMs = baseDelayMs;
+            this.maxDelayMs = maxDelayMs;
+            return this;
+        }
+
+        /**
+         * Sets the fraction, between 0 and 1, of each delay that is randomized so that clients do not retry in step.
+         */
+        public Builder setJitter(double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets the time after the first attempt beyond which no retry is started, and an attempt still running is
+         * cancelled. {@link #NO_DEADLINE} disables it.
+         */
+        public Builder setDeadlineMs(long deadlineMs) {
+            if (deadlineMs <= 0) {
+                throw new IllegalArgumentException("deadlineMs must be positive: " + deadlineMs);
+            }
+            this.deadlineMs = deadlineMs;
+            return this;
+        }
+
+        public Builder setRetryableCategories(AuthErrorCategory first, AuthErrorCategory... rest) {
+            this.retryableCategories = EnumSet.of(first, rest);
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
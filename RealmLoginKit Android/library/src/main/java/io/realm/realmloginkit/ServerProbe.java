@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.realm.realmloginkit.util.AuthEndpoint;
+import io.realm.realmloginkit.util.UriHelper;
+
+/**
+ * Measures how long a TCP connect to an authentication endpoint takes. The host name is resolved first, on a
+ * separate thread because the lookup cannot be interrupted, and only the connect is timed. Resolving and connecting
+ * are each bounded by the timeout. It runs on the calling thread, and {@link #cancel()} may be called from any other
+ * thread to abort it.
+ */
+final class ServerProbe {
+    static final long UNREACHABLE = -1;
+
+    private static final ExecutorService resolveExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "LoginKitResolve");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Socket socket = new Socket();
+    private volatile Future<InetAddress> resolving;
+    private volatile boolean isCancelled;
+
+    /**
+     * Returns the connect latency in milliseconds, or {@link #UNREACHABLE} if resolving the host or the connect
+     * failed, timed out or was cancelled.
+     */
+    long measureLatency(String authUri, int timeoutMs) {
+        try {
+            final AuthEndpoint endpoint = UriHelper.parseAuthEndpoint(authUri);
+            final InetAddress address = resolve(endpoint.getHost(), timeoutMs);
+            final long startedAt = System.nanoTime();
+            socket.connect(new InetSocketAddress(address, endpoint.getPort()), timeoutMs);
+            return (System.nanoTime() - startedAt) / 1000000;
+        } catch (IOException | RuntimeException | ExecutionException | TimeoutException e) {
+            return UNREACHABLE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UNREACHABLE;
+        } finally {
+            close();
+        }
+    }
+
+    void cancel() {
+        isCancelled = true;
+        final Future<InetAddress> resolving = this.resolving;
+        if (resolving != null) {
+            resolving.cancel(true);
+        }
+        close();
+    }
+
+    private InetAddress resolve(String host, int timeoutMs)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final String name = host.startsWith("[") ? host.substring(1, host.length() - 1) : host;
+        resolving = resolveExecutor.submit(new Callable<InetAddress>() {
+            @Override
+            public InetAddress call() throws Exception {
+                return InetAddress.getByName(name);
+            }
+        });
+        if (isCancelled) {
+            // cancel() may have run before the lookup was submitted.
+            resolving.cancel(true);
+        }
+        try {
+            return resolving.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resolving.cancel(true);
+            throw e;
+        }
+    }
+
+    private void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
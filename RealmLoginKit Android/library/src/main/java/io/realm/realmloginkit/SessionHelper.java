@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import java.util.Map;
+
+import io.realm.SyncUser;
+import io.realm.realmloginkit.util.UriHelper;
+
+public class SessionHelper {
+
+    /**
+     * Returns a logged in user with a valid session, or {@code null} if there is none. This only looks at users
+     * cached on the device and never touches the network.
+     *
+     * @param serverUri the server the user must be logged into, in any form accepted by {@link UriHelper}, or
+     * {@code null} to accept any server.
+     */
+    public static SyncUser getValidUser(String serverUri) {
+        final Map<String, SyncUser> users = SyncUser.all();
+        if (users.isEmpty()) {
+            return null;
+        }
+        final String authUri;
+        try {
+            authUri = serverUri == null ? null : UriHelper.getValidAuthUri(serverUri);
+        } catch (IllegalArgumentException e) {
+            // No user can be logged into a server whose URI cannot be parsed.
+            return null;
+        }
+        for (SyncUser user : users.values()) {
+            if (!user.isValid()) {
+                continue;
+            }
+            if (authUri == null || authUri.equals(user.getAuthenticationUrl().toString())) {
+                return user;
+            }
+        }
+        return null;
+    }
+}
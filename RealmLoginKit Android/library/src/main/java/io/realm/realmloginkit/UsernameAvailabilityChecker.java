@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import io.realm.realmloginkit.util.UriHelper;
+
+/**
+ * Checks whether the username typed into the register form is still available, using the
+ * {@link UsernameAvailabilityService} set with {@link #setService(UsernameAvailabilityService)}. A check starts only
+ * after typing paused for {@link #DEBOUNCE_MS}. At most one request runs per server at a time; while it runs, only
+ * the newest check for that server waits, and a check it replaces is reported as {@link State#UNKNOWN}. Results that
+ * are no longer wanted are cached but not reported. Results are kept per server and username in a small LRU cache
+ * for {@link #TTL_MS}.
+ * <p>
+ * All methods must be called from the main thread, and the listener is called on it.
+ */
+public class UsernameAvailabilityChecker {
+    static final long DEBOUNCE_MS = 500;
+    static final long TTL_MS = 60 * 1000;
+    private static final int CACHE_SIZE = 32;
+
+    public enum State {
+        /**
+         * Nothing to check, or the service could not tell.
+         */
+        UNKNOWN,
+        CHECKING,
+        AVAILABLE,
+        TAKEN
+    }
+
+    public interface Listener {
+        void onAvailabilityChanged(State state);
+    }
+
+    private static final class Result {
+        private final boolean isAvailable;
+        private final long checkedAt;
+
+        private Result(boolean isAvailable, long checkedAt) {
+            this.isAvailable = isAvailable;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    private static final class Request {
+        private final UsernameAvailabilityChecker checker;
+        private final int generation;
+        private final String authUri;
+        private final String username;
+
+        private Request(UsernameAvailabilityChecker checker, int generation, String authUri, String username) {
+            this.checker = checker;
+            this.generation = generation;
+            this.authUri = authUri;
+            this.username = username;
+        }
+
+        private boolean isWanted() {
+            return checker.generation == generation;
+        }
+    }
+
+    // The state of one server: whether a request is running, and the newest request waiting for it.
+    private static final class Server {
+        private boolean isBusy;
+        private Request next;
+    }
+
+    private static volatile UsernameAvailabilityService service;
+    private static final Map<String, Result> cache = new LinkedHashMap<String, Result>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static final Map<String, Server> servers = new HashMap<>();
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "LoginKitAvailability");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Listener listener;
+    private int generation;
+    private Runnable pendingCheck;
+
+    public UsernameAvailabilityChecker(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Lets the register form tell whether the entered email address is still available while it is typed. The
+     * Realm Object Server has no such check, so {@code service} must ask a server of your own. The service is used
+     * by every login screen of the process. Passing {@code null} turns the check off, which is the default.
+     */
+    public static void setService(UsernameAvailabilityService service) {
+        UsernameAvailabilityChecker.service = service;
+    }
+
+    public static boolean isEnabled() {
+        return service != null;
+    }
+
+    /**
+     * Schedules a check of {@code username} on {@code serverUri}, replacing the previous one.
+     */
+    public void check(String serverUri, final String username) {
+        cancel();
+        final String authUri;
+        try {
+            authUri = serverUri.trim().isEmpty() || username.isEmpty() ? null : UriHelper.getValidAuthUri(serverUri);
+        } catch (IllegalArgumentException e) {
+            // A malformed port or IPv6 address, while it is still being typed.
+            listener.onAvailabilityChanged(State.UNKNOWN);
+            return;
+        }
+        if (authUri == null || service == null) {
+            listener.onAvailabilityChanged(State.UNKNOWN);
+            return;
+        }
+        final Result cached = cache.get(getKey(authUri, username));
+        if (cached != null && now() - cached.checkedAt < TTL_MS) {
+            listener.onAvailabilityChanged(cached.isAvailable ? State.AVAILABLE : State.TAKEN);
+            return;
+        }
+        final Request request = new Request(this, generation, authUri, username);
+        pendingCheck = new Runnable() {
+            @Override
+            public void run() {
+                pendingCheck = null;
+                listener.onAvailabilityChanged(State.CHECKING);
+                submit(request);
+            }
+        };
+        handler.postDelayed(pendingCheck, DEBOUNCE_MS);
+    }
+
+    /**
+     * Cancels the pending check. A request that already runs is finished, but its result is not reported.
+     */
+    public void cancel() {
+        generation++;
+        if (pendingCheck != null) {
+            handler.removeCallbacks(pendingCheck);
+            pendingCheck = null;
+        }
+    }
+
+    private static void submit(Request request) {
+        Server server = servers.get(request.authUri);
+        if (server == null) {
+            server = new Server();
+            servers.put(request.authUri, server);
+        }
+        if (server.isBusy) {
+            final Request replaced = server.next;
+            server.next = request;
+            // A check replaced by another form would otherwise show CHECKING forever.
+            if (replaced != null && replaced.isWanted()) {
+                replaced.checker.listener.onAvailabilityChanged(State.UNKNOWN);
+            }
+        } else {
+            start(server, request);
+        }
+    }
+
+    private static void start(final Server server, final Request request) {
+        final UsernameAvailabilityService service = UsernameAvailabilityChecker.service;
+        if (service == null) {
+            return;
+        }
+        server.isBusy = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Boolean isAvailable;
+                try {
+                    isAvailable = service.isAvailable(request.authUri, request.username);
+                } catch (IOException | RuntimeException e) {
+                    isAvailable = null;
+                }
+                final Boolean result = isAvailable;
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        finish(server, request, result);
+                    }
+                });
+            }
+        });
+    }
+
+    private static void finish(Server server, Request request, Boolean isAvailable) {
+        if (isAvailable != null) {
+            cache.put(getKey(request.authUri, request.username), new Result(isAvailable, now()));
+        }
+        if (request.isWanted()) {
+            request.checker.listener.onAvailabilityChanged(isAvailable == null ? State.UNKNOWN
+                    : (isAvailable ? State.AVAILABLE : State.TAKEN));
+        }
+        server.isBusy = false;
+        final Request next = server.next;
+        server.next = null;
+        if (next != null && next.isWanted()) {
+            start(server, next);
+        } else {
+            servers.remove(request.authUri);
+        }
+    }
+
+    private static String getKey(String authUri, String username) {
+        return authUri + '\n' + username;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit;
+
+import java.io.IOException;
+
+/**
+ * Tells whether a username can still be registered on a server. The Realm Object Server has no such endpoint, so it
+ * must be provided by the app, e.g. with {@link HttpUsernameAvailabilityService}. See
+ * {@link UsernameAvailabilityChecker#setService(UsernameAvailabilityService)}.
+ */
+public interface UsernameAvailabilityService {
+
+    /**
+     * Called on a background thread.
+     *
+     * @throws IOException if the answer is not known.
+     */
+    boolean isAvailable(String authUri, String username) throws IOException;
+}
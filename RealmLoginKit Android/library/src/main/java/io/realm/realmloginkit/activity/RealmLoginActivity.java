@@ -16,14 +16,19 @@
 
 package io.realm.realmloginkit.activity;
 
+import android.content.DialogInterface;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.v4.view.AsyncLayoutInflater;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.transition.TransitionManager;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.CheckBox;
 import android.widget.CompoundButton;
@@ -32,51 +37,149 @@ import android.widget.ProgressBar;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import io.realm.ObjectServerError;
-import io.realm.SyncCredentials;
 import io.realm.SyncUser;
+import io.realm.realmloginkit.AuthErrorCategory;
+import io.realm.realmloginkit.EndpointSelector;
+import io.realm.realmloginkit.LoginKitMetrics;
+import io.realm.realmloginkit.LoginRequestManager;
+import io.realm.realmloginkit.LoginResultChannel;
+import io.realm.realmloginkit.Metrics;
+import io.realm.realmloginkit.OfflineLogin;
+import io.realm.realmloginkit.Prewarmer;
+import io.realm.realmloginkit.ReachabilityChecker;
 import io.realm.realmloginkit.R;
+import io.realm.realmloginkit.RetryPolicy;
+import io.realm.realmloginkit.UsernameAvailabilityChecker;
+import io.realm.realmloginkit.store.Account;
+import io.realm.realmloginkit.store.AccountRegistry;
+import io.realm.realmloginkit.store.CredentialStore;
+import io.realm.realmloginkit.store.CredentialStores;
+import io.realm.realmloginkit.store.StoredCredentials;
 import io.realm.realmloginkit.util.Constants;
+import io.realm.realmloginkit.util.FormValidation;
+import io.realm.realmloginkit.util.FormValidator;
 import io.realm.realmloginkit.util.UriHelper;
+import io.realm.realmloginkit.widget.ValidatingTextWatcher;
 
 
-public class RealmLoginActivity extends AppCompatActivity implements View.OnClickListener, SyncUser.Callback, TextWatcher, CompoundButton.OnCheckedChangeListener {
+public class RealmLoginActivity extends AppCompatActivity implements View.OnClickListener, SyncUser.Callback, CompoundButton.OnCheckedChangeListener, FormValidator.OnValidityChangeListener, CredentialStore.Callback, ReachabilityChecker.Listener, UsernameAvailabilityChecker.Listener {
     private boolean isDarkMode;
     private String appTitle;
+    private RetryPolicy retryPolicy;
+    private List<String> serverUris;
+    private boolean isOfflineLoginEnabled;
+    private boolean isMultiAccountEnabled;
+    private boolean isRegisterMode;
     private RelativeLayout logInPanel;
     private ProgressBar progressBar;
-    private Button registerButton;
-    private Button loginButton;
+    private TextView welcomeText;
+    private Button switchModeButton;
+    private Button submitButton;
     private EditText serverUrlEdit;
+    private TextView serverStatusText;
     private EditText emailAddressEdit;
+    private TextView emailStatusText;
     private EditText passwordEdit;
+    private View confirmPasswordLayout;
+    private EditText confirmPasswordEdit;
     private CheckBox rememberCheckBox;
-    private SharedPreferences sharedPreferences;
+    private CredentialStore credentialStore;
+    private FormValidator formValidator;
+    private ReachabilityChecker reachabilityChecker;
+    private UsernameAvailabilityChecker availabilityChecker;
+    private int loginRequestId = LoginRequestManager.NO_REQUEST;
+    private long credentialsLoadStartedAt;
+    private OfflineLogin.FindCallback offlineFindCallback;
+    private AccountRegistry.Callback accountsCallback;
+    // Whether the cached user was already looked up before the current login went online.
+    private boolean isOfflineLoginTried;
+    private final Runnable finishWithResult = new Runnable() {
+        @Override
+        public void run() {
+            setResult(Constants.RESULT_CODE_LOGIN_OK, new Intent().putExtra(Constants.KEY_FINISHED_AT, Metrics.now()));
+            finish();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        final long startedAt = SystemClock.elapsedRealtime();
+        final long createdAt = Metrics.now();
         super.onCreate(savedInstanceState);
         Bundle extras = getIntent().getExtras();
+        // A recreated activity was not launched by LoginKit this time.
+        final long launchedAt = savedInstanceState == null ? extras.getLong(Constants.KEY_LAUNCHED_AT, createdAt) : createdAt;
         isDarkMode = extras.getBoolean(Constants.KEY_DARK_MODE, false);
         appTitle = extras.getString(Constants.KEY_APP_TITLE, getResources().getString(R.string.default_app_title));
+        final RetryPolicy extraRetryPolicy = (RetryPolicy) extras.getSerializable(Constants.KEY_RETRY_POLICY);
+        retryPolicy = extraRetryPolicy != null ? extraRetryPolicy : RetryPolicy.NONE;
+        isOfflineLoginEnabled = extras.getBoolean(Constants.KEY_OFFLINE_LOGIN, false);
+        isMultiAccountEnabled = extras.getBoolean(Constants.KEY_MULTI_ACCOUNT, false);
+        credentialStore = CredentialStores.getDefault(this);
 
         initTheme();
-        setContentView(R.layout.activity_login);
-
-        TextView welcomeLogIn = (TextView) findViewById(R.id.welcome_log_in);
-        welcomeLogIn.setText(String.format(getResources().getString(R.string.welcome_log_in), appTitle));
+        // Views restore their own state right after onCreate(), so a recreated activity must inflate synchronously.
+        if (extras.getBoolean(Constants.KEY_ASYNC_INFLATION, false) && savedInstanceState == null) {
+            final ViewGroup contentFrame = (ViewGroup) findViewById(android.R.id.content);
+            new AsyncLayoutInflater(this).inflate(R.layout.activity_login, contentFrame, new AsyncLayoutInflater.OnInflateFinishedListener() {
+                @Override
+                public void onInflateFinished(View view, int resid, ViewGroup parent) {
+                    if (isFinishing() || isChangingConfigurations()) {
+                        return;
+                    }
+                    Prewarmer.logInflateTime(RealmLoginActivity.this, startedAt, true);
+                    setContentView(view);
+                    onContentViewCreated(null, startedAt, launchedAt);
+                }
+            });
+        } else {
+            setContentView(R.layout.activity_login);
+            Prewarmer.logInflateTime(this, startedAt, false);
+            onContentViewCreated(savedInstanceState, startedAt, launchedAt);
+        }
+    }
 
+    private void onContentViewCreated(Bundle savedInstanceState, long startedAt, long launchedAt) {
+        final Bundle extras = getIntent().getExtras();
+        welcomeText = (TextView) findViewById(R.id.welcome);
         logInPanel = (RelativeLayout) findViewById(R.id.log_in_panel);
         progressBar = (ProgressBar) findViewById(R.id.progress_bar);
 
-        registerButton = (Button) findViewById(R.id.register);
-        registerButton.setOnClickListener(this);
-        loginButton = (Button) findViewById(R.id.log_in);
-        loginButton.setOnClickListener(this);
+        switchModeButton = (Button) findViewById(R.id.switch_mode);
+        switchModeButton.setOnClickListener(this);
+        submitButton = (Button) findViewById(R.id.submit);
+        submitButton.setOnClickListener(this);
+        final Button chooseAccountButton = (Button) findViewById(R.id.choose_account);
+        chooseAccountButton.setOnClickListener(this);
+        if (isMultiAccountEnabled) {
+            accountsCallback = new AccountRegistry.Callback() {
+                @Override
+                public void onAccountsLoaded(List<Account> accounts) {
+                    // Dropped if the activity was destroyed while the accounts were read.
+                    if (accountsCallback != this) {
+                        return;
+                    }
+                    accountsCallback = null;
+                    if (!accounts.isEmpty()) {
+                        chooseAccountButton.setVisibility(View.VISIBLE);
+                    }
+                }
+            };
+            AccountRegistry.getInstance(this).loadAccounts(accountsCallback);
+        }
 
         serverUrlEdit = (EditText) findViewById(R.id.server_url);
+        serverStatusText = (TextView) findViewById(R.id.server_status);
         emailAddressEdit = (EditText) findViewById(R.id.email_address);
+        emailStatusText = (TextView) findViewById(R.id.email_status);
         passwordEdit = (EditText) findViewById(R.id.password);
+        confirmPasswordLayout = findViewById(R.id.confirm_password_layout);
+        confirmPasswordEdit = (EditText) findViewById(R.id.confirm_password);
         rememberCheckBox = (CheckBox) findViewById(R.id.remember);
 
         final String presetServerUri = extras.getString(Constants.KEY_SERVER_URI);
@@ -88,22 +191,157 @@ public class RealmLoginActivity extends AppCompatActivity implements View.OnClic
         if (shouldeHideServerUri) {
             serverUrlEdit.setVisibility(View.GONE);
         }
+        serverUris = extras.getStringArrayList(Constants.KEY_SERVER_URIS);
+        if (serverUris != null) {
+            // Start probing while the user is typing, so that the login does not have to wait for it.
+            final List<String> authUris = getAuthUris(serverUris);
+            if (authUris != null) {
+                EndpointSelector.getInstance().probe(authUris);
+            }
+        } else if (!shouldeHideServerUri) {
+            reachabilityChecker = new ReachabilityChecker(this);
+            serverUrlEdit.addTextChangedListener(new TextWatcher() {
+                @Override
+                public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                }
 
-        sharedPreferences = getSharedPreferences(Constants.SHARED_PREFERENCES_NAME, MODE_PRIVATE);
+                @Override
+                public void onTextChanged(CharSequence s, int start, int before, int count) {
+                }
 
-        if (sharedPreferences.contains(Constants.SHARED_KEY_SERVER_URI)) {
-            serverUrlEdit.setText(sharedPreferences.getString(Constants.SHARED_KEY_SERVER_URI, ""));
-            emailAddressEdit.setText(sharedPreferences.getString(Constants.SHARED_KEY_EMAIL, ""));
-            passwordEdit.setText(sharedPreferences.getString(Constants.SHARED_KEY_PASSWORD, ""));
-            rememberCheckBox.setChecked(true);
+                @Override
+                public void afterTextChanged(Editable s) {
+                    reachabilityChecker.check(s.toString());
+                }
+            });
+            reachabilityChecker.check(serverUrlEdit.getText().toString());
         }
+        if (UsernameAvailabilityChecker.isEnabled()) {
+            availabilityChecker = new UsernameAvailabilityChecker(this);
+            emailAddressEdit.addTextChangedListener(new TextWatcher() {
+                @Override
+                public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                }
 
-        serverUrlEdit.addTextChangedListener(this);
-        emailAddressEdit.addTextChangedListener(this);
-        passwordEdit.addTextChangedListener(this);
+                @Override
+                public void onTextChanged(CharSequence s, int start, int before, int count) {
+                }
+
+                @Override
+                public void afterTextChanged(Editable s) {
+                    checkAvailability();
+                }
+            });
+        }
+
+        formValidator = FormValidation.newRegisterValidator();
+        ValidatingTextWatcher.watch(serverUrlEdit, formValidator, FormValidation.FIELD_SERVER_URL);
+        ValidatingTextWatcher.watch(emailAddressEdit, formValidator, FormValidation.FIELD_EMAIL_ADDRESS);
+        ValidatingTextWatcher.watch(passwordEdit, formValidator, FormValidation.FIELD_PASSWORD);
+        ValidatingTextWatcher.watch(confirmPasswordEdit, formValidator, FormValidation.FIELD_CONFIRM_PASSWORD);
+        setRegisterMode(savedInstanceState != null
+                ? savedInstanceState.getBoolean(Constants.KEY_REGISTER_MODE, false)
+                : extras.getBoolean(Constants.KEY_REGISTER_MODE, false), false);
+        submitButton.setEnabled(formValidator.isValid());
+        formValidator.setOnValidityChangeListener(this);
 
         rememberCheckBox.setOnCheckedChangeListener(this);
-        validateForm();
+        if (savedInstanceState != null && LoginResultChannel.isPending(getResultToken())) {
+            // The user is logged in, and the user's Realm is still being opened or was opened during recreation.
+            setProgressVisible(true);
+            LoginResultChannel.attach(getResultToken(), finishWithResult);
+        } else if (savedInstanceState != null) {
+            restoreLoginRequest(savedInstanceState.getInt(Constants.KEY_LOGIN_REQUEST_ID, LoginRequestManager.NO_REQUEST));
+        } else {
+            // On recreation the views restore their own state, which must not be overwritten.
+            credentialsLoadStartedAt = Metrics.now();
+            credentialStore.load(this);
+        }
+        Prewarmer.logTimeToFirstDraw(this, startedAt, launchedAt);
+    }
+
+    @Override
+    public void onLoaded(StoredCredentials credentials) {
+        Metrics.report(LoginKitMetrics.Phase.CREDENTIALS_LOAD, credentialsLoadStartedAt, null);
+        if (credentials != null) {
+            serverUrlEdit.setText(credentials.getServerUri());
+            emailAddressEdit.setText(credentials.getEmailAddress());
+            passwordEdit.setText(credentials.getPassword());
+            rememberCheckBox.setChecked(true);
+        }
+    }
+
+    // Login and register are two states of the same screen, which share the views and what was typed into them.
+    private void setRegisterMode(boolean isRegisterMode, boolean animate) {
+        if (animate && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Fades the confirm field in or out and moves the views around it into place. Older devices switch at once.
+            TransitionManager.beginDelayedTransition(logInPanel);
+        }
+        this.isRegisterMode = isRegisterMode;
+        formValidator.setFieldEnabled(FormValidation.FIELD_CONFIRM_PASSWORD, isRegisterMode);
+        confirmPasswordLayout.setVisibility(isRegisterMode ? View.VISIBLE : View.GONE);
+        welcomeText.setText(String.format(getResources().getString(isRegisterMode ? R.string.welcome_sign_up : R.string.welcome_log_in), appTitle));
+        submitButton.setText(isRegisterMode ? R.string.sign_up : R.string.log_in);
+        switchModeButton.setText(isRegisterMode ? R.string.log_into_your_account : R.string.register_a_new_account);
+        checkAvailability();
+    }
+
+    // Availability only matters when registering.
+    private void checkAvailability() {
+        if (availabilityChecker == null) {
+            return;
+        }
+        if (isRegisterMode) {
+            availabilityChecker.check(serverUrlEdit.getText().toString(), emailAddressEdit.getText().toString());
+        } else {
+            availabilityChecker.cancel();
+            emailStatusText.setVisibility(View.GONE);
+        }
+    }
+
+    private void restoreLoginRequest(int requestId) {
+        final LoginRequestManager loginRequestManager = LoginRequestManager.getInstance();
+        if (!loginRequestManager.isPending(requestId)) {
+            return;
+        }
+        loginRequestId = requestId;
+        setProgressVisible(true);
+        // If the result arrived while the activity was being recreated, it is delivered right away.
+        loginRequestManager.attach(requestId, this);
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(Constants.KEY_LOGIN_REQUEST_ID, loginRequestId);
+        outState.putBoolean(Constants.KEY_REGISTER_MODE, isRegisterMode);
+    }
+
+    @Override
+    protected void onDestroy() {
+        credentialStore.cancelLoad(this);
+        offlineFindCallback = null;
+        accountsCallback = null;
+        if (reachabilityChecker != null) {
+            reachabilityChecker.cancel();
+        }
+        if (availabilityChecker != null) {
+            availabilityChecker.cancel();
+        }
+        if (isFinishing()) {
+            // Does nothing if the user was already delivered.
+            LoginResultChannel.cancel(getResultToken());
+        } else {
+            LoginResultChannel.detach(getResultToken());
+        }
+        if (loginRequestId != LoginRequestManager.NO_REQUEST) {
+            if (isFinishing()) {
+                LoginRequestManager.getInstance().cancel(loginRequestId, this);
+            } else {
+                LoginRequestManager.getInstance().detach(loginRequestId, this);
+            }
+        }
+        super.onDestroy();
     }
 
     private void initTheme() {
@@ -117,101 +355,260 @@ public class RealmLoginActivity extends AppCompatActivity implements View.OnClic
     @Override
     public void onClick(View v) {
         // Since resource ids of the library are not final, the following if-else cannot be replaced with switch-case.
-        if (v.getId() == R.id.log_in) {
-            handleLogIn();
-        } else if (v.getId() == R.id.register) {
-            handleRegister();
+        if (v.getId() == R.id.submit) {
+            handleSubmit();
+        } else if (v.getId() == R.id.switch_mode) {
+            setRegisterMode(!isRegisterMode, true);
+        } else if (v.getId() == R.id.choose_account) {
+            showAccountPicker();
+        }
+    }
+
+    private void showAccountPicker() {
+        final List<Account> accounts = AccountRegistry.getInstance(this).getAccounts();
+        final CharSequence[] items = new CharSequence[accounts.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = getString(R.string.account_at_server, accounts.get(i).getEmailAddress(), accounts.get(i).getServerUri());
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.choose_an_account)
+                .setItems(items, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        switchAccount(accounts.get(which));
+                    }
+                })
+                .show();
+    }
+
+    // Switching to an account with a valid session is local only; otherwise the user has to enter the password.
+    private void switchAccount(Account account) {
+        final SyncUser user = AccountRegistry.getInstance(this).getValidUser(account);
+        if (user != null) {
+            AccountRegistry.getInstance(this).put(account.getServerUri(), account.getEmailAddress(), user);
+            completeLogIn(user, false);
+            return;
         }
+        setRegisterMode(false, true);
+        serverUrlEdit.setText(account.getServerUri());
+        emailAddressEdit.setText(account.getEmailAddress());
+        passwordEdit.setText("");
+        passwordEdit.requestFocus();
     }
 
-    private void handleLogIn() {
+    @Override
+    public void onBackPressed() {
+        if (LoginResultChannel.isPending(getResultToken())) {
+            // Stops waiting for the Realm; the user is logged in, so the result is still delivered.
+            LoginResultChannel.cancel(getResultToken());
+            finishWithResult.run();
+            return;
+        }
+        if (isRegisterMode && loginRequestId == LoginRequestManager.NO_REQUEST) {
+            setRegisterMode(false, true);
+            return;
+        }
+        super.onBackPressed();
+    }
+
+    private void handleSubmit() {
         final String serverUrl = serverUrlEdit.getText().toString();
         final String emailAddress = emailAddressEdit.getText().toString();
         final String password = passwordEdit.getText().toString();
 
-        final SyncCredentials syncCredentials = SyncCredentials.usernamePassword(emailAddress, password);
-        logInPanel.setVisibility(View.GONE);
-        progressBar.setVisibility(View.VISIBLE);
-        SyncUser.loginAsync(syncCredentials, UriHelper.getValidAuthUri(serverUrl), this);
+        final long normalizationStartedAt = Metrics.beginSection(LoginKitMetrics.Phase.URI_NORMALIZATION);
+        final List<String> authUris = getAuthUris(serverUris != null ? serverUris : Collections.singletonList(serverUrl));
+        Metrics.endSection(LoginKitMetrics.Phase.URI_NORMALIZATION, normalizationStartedAt);
+        if (authUris == null) {
+            showError(R.string.invalid_server_url);
+            return;
+        }
+        setProgressVisible(true);
+        isOfflineLoginTried = isOfflineLoginEnabled && !isRegisterMode && !OfflineLogin.isOnline(this);
+        if (isOfflineLoginTried) {
+            logInOffline(authUris, emailAddress, password, new Runnable() {
+                @Override
+                public void run() {
+                    logInOnline(authUris, emailAddress, password);
+                }
+            });
+            return;
+        }
+        logInOnline(authUris, emailAddress, password);
+    }
+
+    private void logInOnline(List<String> authUris, String emailAddress, String password) {
+        final LoginRequestManager loginRequestManager = LoginRequestManager.getInstance();
+        loginRequestId = loginRequestManager.logIn(authUris, emailAddress, password, isRegisterMode, retryPolicy);
+        loginRequestManager.attach(loginRequestId, this);
+    }
+
+    // Completes the login with the user cached on the device if there is one, and runs onNotFound otherwise.
+    private void logInOffline(List<String> authUris, final String emailAddress, final String password, final Runnable onNotFound) {
+        offlineFindCallback = new OfflineLogin.FindCallback() {
+            @Override
+            public void onFound(SyncUser user, String authUri) {
+                // Dropped if the activity was destroyed while the password was hashed.
+                if (offlineFindCallback != this) {
+                    return;
+                }
+                offlineFindCallback = null;
+                if (user == null) {
+                    onNotFound.run();
+                    return;
+                }
+                OfflineLogin.revalidate(RealmLoginActivity.this, authUri, emailAddress, password, user);
+                completeLogIn(user, true);
+            }
+        };
+        OfflineLogin.find(this, authUris, emailAddress, password, offlineFindCallback);
     }
 
-    private void handleRegister() {
-        final Intent intent = new Intent(this, RealmRegisterActivity.class);
-        intent.putExtras(getIntent().getExtras());
-        startActivityForResult(intent, Constants.REQUEST_CODE_REGISTER);
+    // Returns null if one of the URIs cannot be parsed.
+    private static List<String> getAuthUris(List<String> serverUris) {
+        final List<String> authUris = new ArrayList<>(serverUris.size());
+        try {
+            for (String serverUri : serverUris) {
+                authUris.add(UriHelper.getValidAuthUri(serverUri));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return authUris;
     }
 
     @Override
     public void onSuccess(SyncUser user) {
-        if (rememberCheckBox.isChecked()) {
+        loginRequestId = LoginRequestManager.NO_REQUEST;
+        if (isOfflineLoginEnabled) {
+            OfflineLogin.record(this, user.getAuthenticationUrl().toString(), emailAddressEdit.getText().toString(),
+                    passwordEdit.getText().toString(), user);
+        }
+        if (isMultiAccountEnabled) {
+            AccountRegistry.getInstance(this).put(serverUrlEdit.getText().toString(), emailAddressEdit.getText().toString(), user);
+        }
+        completeLogIn(user, true);
+    }
+
+    // Only a user who logged in with what was entered in the form may have that remembered.
+    private void completeLogIn(SyncUser user, boolean isFromForm) {
+        if (isFromForm && rememberCheckBox.isChecked()) {
             final String serverUrl = serverUrlEdit.getText().toString();
             final String emailAddress = emailAddressEdit.getText().toString();
             final String password = passwordEdit.getText().toString();
 
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.putString(Constants.SHARED_KEY_SERVER_URI, serverUrl);
-            editor.putString(Constants.SHARED_KEY_EMAIL, emailAddress);
-            editor.putString(Constants.SHARED_KEY_PASSWORD, password);
-            editor.commit();
+            final long persistStartedAt = Metrics.beginSection(LoginKitMetrics.Phase.CREDENTIALS_PERSIST);
+            credentialStore.save(new StoredCredentials(serverUrl, emailAddress, password));
+            Metrics.endSection(LoginKitMetrics.Phase.CREDENTIALS_PERSIST, persistStartedAt);
         }
 
-        setResult(Constants.RESULT_CODE_LOGIN_OK);
-        finish();
+        if (getIntent().getBooleanExtra(Constants.KEY_WAIT_FOR_REALM, false)) {
+            // The progress indicator stays visible until the user's Realm is open.
+            setProgressVisible(true);
+            LoginResultChannel.deliver(getResultToken(), user, finishWithResult);
+        } else {
+            LoginResultChannel.deliver(getResultToken(), user, null);
+            finishWithResult.run();
+        }
+    }
+
+    private int getResultToken() {
+        return getIntent().getIntExtra(Constants.KEY_RESULT_TOKEN, LoginResultChannel.NO_TOKEN);
     }
 
     @Override
-    public void onError(ObjectServerError error) {
-        logInPanel.setVisibility(View.VISIBLE);
-        progressBar.setVisibility(View.GONE);
+    public void onError(final ObjectServerError error) {
+        loginRequestId = LoginRequestManager.NO_REQUEST;
+        if (isOfflineLoginEnabled && !isRegisterMode && !isOfflineLoginTried && AuthErrorCategory.of(error) == AuthErrorCategory.NETWORK) {
+            final String serverUrl = serverUrlEdit.getText().toString();
+            final List<String> authUris = getAuthUris(serverUris != null ? serverUris : Collections.singletonList(serverUrl));
+            if (authUris != null) {
+                // The progress indicator stays visible while the cached user is looked up.
+                logInOffline(authUris, emailAddressEdit.getText().toString(), passwordEdit.getText().toString(), new Runnable() {
+                    @Override
+                    public void run() {
+                        setProgressVisible(false);
+                        showError(error.getErrorMessage());
+                    }
+                });
+                return;
+            }
+        }
+        setProgressVisible(false);
+        showError(error.getErrorMessage());
+    }
+
+    private void showError(int messageId) {
+        showError(getString(messageId));
+    }
+
+    private void showError(String message) {
         final AlertDialog.Builder builder = new AlertDialog.Builder(this);
-        builder.setTitle(R.string.unable_to_sign_in)
-                .setMessage(error.getErrorMessage())
+        builder.setTitle(isRegisterMode ? R.string.unable_to_sign_up : R.string.unable_to_sign_in)
+                .setMessage(message)
                 .setCancelable(false)
                 .setPositiveButton(R.string.ok, null);
         builder.create().show();
     }
 
-    @Override
-    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    // The form stays in the layout while the progress bar is shown, so toggling does not cause a relayout.
+    private void setProgressVisible(boolean isVisible) {
+        for (int i = 0; i < logInPanel.getChildCount(); i++) {
+            final View child = logInPanel.getChildAt(i);
+            if (child != progressBar && child.getVisibility() != View.GONE) {
+                child.setVisibility(isVisible ? View.INVISIBLE : View.VISIBLE);
+            }
+        }
+        progressBar.setVisibility(isVisible ? View.VISIBLE : View.INVISIBLE);
     }
 
     @Override
-    public void onTextChanged(CharSequence s, int start, int before, int count) {
-        validateForm();
-    }
-
-    private void validateForm() {
-        final String serverUrl = serverUrlEdit.getText().toString();
-        final String emailAddress = emailAddressEdit.getText().toString();
-        final String password = passwordEdit.getText().toString();
-        if (serverUrl.isEmpty() || emailAddress.isEmpty() || password.isEmpty() || !emailAddress.contains("@")) {
-            loginButton.setEnabled(false);
-        } else {
-            loginButton.setEnabled(true);
+    public void onReachabilityChanged(ReachabilityChecker.State state) {
+        switch (state) {
+            case CHECKING:
+                serverStatusText.setText(R.string.checking_server);
+                break;
+            case REACHABLE:
+                serverStatusText.setText(R.string.server_reachable);
+                break;
+            case UNREACHABLE:
+                serverStatusText.setText(R.string.server_unreachable);
+                break;
+            default:
+                serverStatusText.setVisibility(View.GONE);
+                return;
         }
+        serverStatusText.setVisibility(View.VISIBLE);
     }
 
     @Override
-    public void afterTextChanged(Editable s) {
+    public void onAvailabilityChanged(UsernameAvailabilityChecker.State state) {
+        switch (state) {
+            case CHECKING:
+                emailStatusText.setText(R.string.checking_email_address);
+                break;
+            case AVAILABLE:
+                emailStatusText.setText(R.string.email_address_available);
+                break;
+            case TAKEN:
+                emailStatusText.setText(R.string.email_address_taken);
+                break;
+            default:
+                emailStatusText.setVisibility(View.GONE);
+                return;
+        }
+        emailStatusText.setVisibility(View.VISIBLE);
     }
 
     @Override
-    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
-        super.onActivityResult(requestCode, resultCode, data);
-        if (requestCode == Constants.REQUEST_CODE_REGISTER && resultCode == Constants.RESULT_CODE_REGISTER) {
-            setResult(Constants.RESULT_CODE_LOGIN_OK);
-            finish();
-        }
+    public void onValidityChange(boolean isValid) {
+        submitButton.setEnabled(isValid);
     }
 
     @Override
     public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
         if (!isChecked) {
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.remove(Constants.SHARED_KEY_SERVER_URI);
-            editor.remove(Constants.SHARED_KEY_EMAIL);
-            editor.remove(Constants.SHARED_KEY_PASSWORD);
-            editor.commit();
+            credentialStore.clear();
         }
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+/**
+ * An account that logged in on this device, as listed by the {@link AccountRegistry}.
+ */
+public final class Account {
+    private final String authUri;
+    private final String identity;
+    private final String serverUri;
+    private final String emailAddress;
+    private final long lastUsedAt;
+
+    Account(String authUri, String identity, String serverUri, String emailAddress, long lastUsedAt) {
+        this.authUri = authUri;
+        this.identity = identity;
+        this.serverUri = serverUri;
+        this.emailAddress = emailAddress;
+        this.lastUsedAt = lastUsedAt;
+    }
+
+    public String getAuthUri() {
+        return authUri;
+    }
+
+    /**
+     * Returns the identity of the account's {@code SyncUser}.
+     */
+    public String getIdentity() {
+        return identity;
+    }
+
+    /**
+     * Returns the server URI as entered on the login screen.
+     */
+    public String getServerUri() {
+        return serverUri;
+    }
+
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    /**
+     * Returns when the account last logged in, in milliseconds since the epoch.
+     */
+    public long getLastUsedAt() {
+        return lastUsedAt;
+    }
+}
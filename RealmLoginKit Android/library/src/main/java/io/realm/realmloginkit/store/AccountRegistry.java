@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import io.realm.SyncUser;
+import io.realm.realmloginkit.util.Constants;
+
+/**
+ * Remembers every account that logged in on this device, keyed by authentication URL and user identity, so that
+ * the login screen can switch between them. Passwords are not kept here. Each account is one shared preferences
+ * entry; they are read into an index once per process, after which all lookups are in memory. Use
+ * {@link #loadAccounts(Callback)} on the main thread, which reads them on a background thread.
+ */
+public class AccountRegistry {
+    private static AccountRegistry instance;
+
+    public interface Callback {
+        /**
+         * Called on the main thread, with the accounts most recently used first.
+         */
+        void onAccountsLoaded(List<Account> accounts);
+    }
+
+    private final Executor executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Context context;
+    private Map<String, Account> accounts;
+
+    private AccountRegistry(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized AccountRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new AccountRegistry(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Passes all accounts to {@code callback}, right away if they were read before, and otherwise after reading them
+     * on a background thread.
+     */
+    public void loadAccounts(final Callback callback) {
+        synchronized (this) {
+            if (accounts != null) {
+                callback.onAccountsLoaded(getAccounts());
+                return;
+            }
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Account> loaded = getAccounts();
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onAccountsLoaded(loaded);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns all accounts, most recently used first. Reads them from disk the first time.
+     */
+    public synchronized List<Account> getAccounts() {
+        final List<Account> list = new ArrayList<>(getIndex().values());
+        Collections.sort(list, new Comparator<Account>() {
+            @Override
+            public int compare(Account lhs, Account rhs) {
+                return lhs.getLastUsedAt() < rhs.getLastUsedAt() ? 1 : (lhs.getLastUsedAt() == rhs.getLastUsedAt() ? 0 : -1);
+            }
+        });
+        return list;
+    }
+
+    public synchronized Account get(String authUri, String identity) {
+        return getIndex().get(getKey(authUri, identity));
+    }
+
+    /**
+     * Adds the account of {@code user}, or marks it as used now if it exists.
+     */
+    public synchronized Account put(String serverUri, String emailAddress, SyncUser user) {
+        final Account account = new Account(user.getAuthenticationUrl().toString(), user.getIdentity(), serverUri,
+                emailAddress, System.currentTimeMillis());
+        final String key = getKey(account.getAuthUri(), account.getIdentity());
+        getIndex().put(key, account);
+        getSharedPreferences().edit()
+                .putString(key, serverUri + '\n' + emailAddress + '\n' + account.getLastUsedAt())
+                .apply();
+        return account;
+    }
+
+    public synchronized void remove(Account account) {
+        final String key = getKey(account.getAuthUri(), account.getIdentity());
+        getIndex().remove(key);
+        getSharedPreferences().edit().remove(key).apply();
+    }
+
+    /**
+     * Returns the account's user if its session is still valid, without touching the network, or {@code null}.
+     */
+    public SyncUser getValidUser(Account account) {
+        final SyncUser user = SyncUser.all().get(account.getIdentity());
+        if (user == null || !user.isValid() || !account.getAuthUri().equals(user.getAuthenticationUrl().toString())) {
+            return null;
+        }
+        return user;
+    }
+
+    private Map<String, Account> getIndex() {
+        if (accounts == null) {
+            final Map<String, ?> entries = getSharedPreferences().getAll();
+            accounts = new HashMap<>(entries.size());
+            for (Map.Entry<String, ?> entry : entries.entrySet()) {
+                final String[] key = entry.getKey().split("\n", 2);
+                final String[] value = String.valueOf(entry.getValue()).split("\n", 3);
+                if (key.length != 2 || value.length != 3) {
+                    continue;
+                }
+                try {
+                    accounts.put(entry.getKey(), new Account(key[0], key[1], value[0], value[1], Long.parseLong(value[2])));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return accounts;
+    }
+
+    private SharedPreferences getSharedPreferences() {
+        return context.getSharedPreferences(Constants.ACCOUNTS_SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static String getKey(String authUri, String identity) {
+        return authUri + '\n' + identity;
+    }
+}
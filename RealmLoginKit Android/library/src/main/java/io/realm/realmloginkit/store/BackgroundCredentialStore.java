@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A {@link CredentialStore} that does all its I/O on a single background thread. The account is kept in memory once
+ * loaded, and consecutive writes are collapsed into one. Subclasses only implement {@link #read()} and
+ * {@link #write(StoredCredentials)}, which are always called on the background thread.
+ */
+public abstract class BackgroundCredentialStore implements CredentialStore {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Callback> pendingCallbacks = new ArrayList<>();
+    private boolean isLoading;
+    private boolean isLoaded;
+    private boolean isWriteScheduled;
+    private StoredCredentials credentials;
+    // Takes the callbacks on the main thread, so that one cancelled in the meantime is not called.
+    private final Runnable deliverPending = new Runnable() {
+        @Override
+        public void run() {
+            final List<Callback> callbacks;
+            final StoredCredentials loaded;
+            synchronized (BackgroundCredentialStore.this) {
+                callbacks = new ArrayList<>(pendingCallbacks);
+                pendingCallbacks.clear();
+                loaded = credentials;
+            }
+            for (Callback callback : callbacks) {
+                callback.onLoaded(loaded);
+            }
+        }
+    };
+
+    protected abstract StoredCredentials read();
+
+    protected abstract void write(StoredCredentials credentials);
+
+    /**
+     * Drops the account kept in memory, so that the next {@link #load(Callback)} reads it again.
+     */
+    protected void invalidate() {
+        synchronized (this) {
+            if (!isWriteScheduled) {
+                isLoaded = false;
+            }
+        }
+    }
+
+    @Override
+    public void preload() {
+        synchronized (this) {
+            if (isLoaded || isLoading) {
+                return;
+            }
+            isLoading = true;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final StoredCredentials stored = read();
+                final boolean hasCallbacks;
+                synchronized (BackgroundCredentialStore.this) {
+                    // A save() while loading wins over what was on disk.
+                    if (!isLoaded) {
+                        credentials = stored;
+                        isLoaded = true;
+                    }
+                    isLoading = false;
+                    hasCallbacks = !pendingCallbacks.isEmpty();
+                }
+                if (hasCallbacks) {
+                    mainHandler.post(deliverPending);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void load(Callback callback) {
+        final StoredCredentials loaded;
+        synchronized (this) {
+            if (!isLoaded) {
+                pendingCallbacks.add(callback);
+                preload();
+                return;
+            }
+            loaded = credentials;
+        }
+        callback.onLoaded(loaded);
+    }
+
+    @Override
+    public void cancelLoad(Callback callback) {
+        synchronized (this) {
+            pendingCallbacks.remove(callback);
+        }
+    }
+
+    /**
+     * Blocks until the stored account has been loaded. Must not be called on the main thread.
+     */
+    public void awaitLoaded() throws InterruptedException {
+        preload();
+        // The executor is serial, so this runs after the load.
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+
+    /**
+     * Returns the account kept in memory, or {@code null} if there is none or it is not loaded yet.
+     */
+    public StoredCredentials getLoaded() {
+        synchronized (this) {
+            return isLoaded ? credentials : null;
+        }
+    }
+
+    @Override
+    public void save(StoredCredentials credentials) {
+        synchronized (this) {
+            this.credentials = credentials;
+            isLoaded = true;
+            if (isWriteScheduled) {
+                return;
+            }
+            isWriteScheduled = true;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final StoredCredentials toWrite;
+                synchronized (BackgroundCredentialStore.this) {
+                    isWriteScheduled = false;
+                    toWrite = BackgroundCredentialStore.this.credentials;
+                }
+                write(toWrite);
+            }
+        });
+    }
+
+    @Override
+    public void clear() {
+        save(null);
+    }
+}
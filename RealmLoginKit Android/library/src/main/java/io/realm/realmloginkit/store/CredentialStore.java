@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+/**
+ * Persists the account remembered by the login screens. Implementations must not do disk I/O on the calling thread.
+ */
+public interface CredentialStore {
+
+    interface Callback {
+        /**
+         * Called on the main thread with the remembered account, or {@code null} if there is none.
+         */
+        void onLoaded(StoredCredentials credentials);
+    }
+
+    /**
+     * Starts loading the stored account in the background, if it is not loaded yet.
+     */
+    void preload();
+
+    /**
+     * Delivers the stored account to {@code callback}. If it is already loaded, the callback is called before this
+     * method returns.
+     */
+    void load(Callback callback);
+
+    /**
+     * Drops {@code callback} if it is still waiting for the account, e.g. when the activity that passed it to
+     * {@link #load(Callback)} is destroyed. It is not called afterwards.
+     */
+    void cancelLoad(Callback callback);
+
+    /**
+     * Replaces the stored account. The new value is visible to {@link #load(Callback)} immediately and written to
+     * disk in the background.
+     */
+    void save(StoredCredentials credentials);
+
+    void clear();
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import android.content.Context;
+
+/**
+ * Holds the {@link CredentialStore} used by the login screens.
+ */
+public class CredentialStores {
+    private static CredentialStore defaultStore;
+
+    public static synchronized CredentialStore getDefault(Context context) {
+        if (defaultStore == null) {
+            defaultStore = new SharedPreferencesCredentialStore(context);
+        }
+        return defaultStore;
+    }
+
+    public static synchronized void setDefault(CredentialStore store) {
+        defaultStore = store;
+    }
+}
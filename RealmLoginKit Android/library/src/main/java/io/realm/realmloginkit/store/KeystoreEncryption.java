@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Base64;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Encrypts secrets with an AES key kept in the Android Keystore. The key is looked up or created once per process.
+ * Below API 23, where the Keystore cannot hold AES keys, values are stored as is.
+ */
+final class KeystoreEncryption {
+    private static final String KEYSTORE_PROVIDER = "AndroidKeyStore";
+    private static final String KEY_ALIAS = "io.realm.realmloginkit.credentials";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String ENCRYPTED_PREFIX = "ks1:";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static SecretKey key;
+
+    private KeystoreEncryption() {
+    }
+
+    static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+    }
+
+    static String encrypt(String value) throws GeneralSecurityException, IOException {
+        if (value == null || !isSupported()) {
+            return value;
+        }
+        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, getKey());
+        final byte[] iv = cipher.getIV();
+        final byte[] encrypted = cipher.doFinal(value.getBytes(UTF_8));
+        final byte[] output = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, output, 0, iv.length);
+        System.arraycopy(encrypted, 0, output, iv.length, encrypted.length);
+        return ENCRYPTED_PREFIX + Base64.encodeToString(output, Base64.NO_WRAP);
+    }
+
+    /**
+     * Decrypts a value produced by {@link #encrypt(String)}. Values stored before encryption was introduced are
+     * returned as is.
+     */
+    static String decrypt(String value) throws GeneralSecurityException, IOException {
+        if (value == null || !value.startsWith(ENCRYPTED_PREFIX)) {
+            return value;
+        }
+        if (!isSupported()) {
+            throw new GeneralSecurityException("Keystore encryption is not supported on this device");
+        }
+        final byte[] input = Base64.decode(value.substring(ENCRYPTED_PREFIX.length()), Base64.NO_WRAP);
+        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, getKey(), new GCMParameterSpec(TAG_LENGTH_BITS, input, 0, IV_LENGTH));
+        return new String(cipher.doFinal(input, IV_LENGTH, input.length - IV_LENGTH), UTF_8);
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private static synchronized SecretKey getKey() throws GeneralSecurityException, IOException {
+        if (key != null) {
+            return key;
+        }
+        final KeyStore keyStore = KeyStore.getInstance(KEYSTORE_PROVIDER);
+        keyStore.load(null);
+        SecretKey storedKey = (SecretKey) keyStore.getKey(KEY_ALIAS, null);
+        if (storedKey == null) {
+            final KeyGenerator keyGenerator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE_PROVIDER);
+            keyGenerator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS, KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                    .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                    .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                    .build());
+            storedKey = keyGenerator.generateKey();
+        }
+        key = storedKey;
+        return key;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.realm.realmloginkit.util.Constants;
+
+/**
+ * A {@link CredentialStore} backed by a {@link MappedSettingsFile}, for apps that read the remembered account from
+ * more than one process. It uses the same {@code Constants.SHARED_KEY_*} keys as
+ * {@link SharedPreferencesCredentialStore}, and moves any account stored there into the file the first time it is
+ * opened. Install it with {@link CredentialStores#setDefault(CredentialStore)} in every process.
+ */
+public class MappedFileCredentialStore extends BackgroundCredentialStore {
+    private static final String TAG = "LoginKit";
+    private static final String FILE_NAME = Constants.SHARED_PREFERENCES_NAME + ".settings";
+    private static final String KEY_MIGRATED = "MIGRATED_FROM_SHARED_PREFERENCES";
+
+    private final Context context;
+    private volatile MappedSettingsFile settingsFile;
+
+    public MappedFileCredentialStore(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void load(Callback callback) {
+        // Checking for writes from other processes only reads the header of the mapped file.
+        final MappedSettingsFile file = settingsFile;
+        if (file != null && file.hasChanged()) {
+            invalidate();
+        }
+        super.load(callback);
+    }
+
+    private MappedSettingsFile getSettingsFile() throws IOException {
+        if (settingsFile == null) {
+            final MappedSettingsFile file = MappedSettingsFile.open(new File(context.getFilesDir(), FILE_NAME));
+            migrate(file);
+            settingsFile = file;
+        }
+        return settingsFile;
+    }
+
+    private void migrate(MappedSettingsFile file) throws IOException {
+        if (file.get(KEY_MIGRATED) != null) {
+            return;
+        }
+        final SharedPreferences sharedPreferences = context.getSharedPreferences(Constants.SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
+        final Map<String, String> changes = new HashMap<>();
+        if (sharedPreferences.contains(Constants.SHARED_KEY_SERVER_URI)) {
+            changes.put(Constants.SHARED_KEY_SERVER_URI, sharedPreferences.getString(Constants.SHARED_KEY_SERVER_URI, ""));
+            changes.put(Constants.SHARED_KEY_EMAIL, sharedPreferences.getString(Constants.SHARED_KEY_EMAIL, ""));
+            changes.put(Constants.SHARED_KEY_PASSWORD, sharedPreferences.getString(Constants.SHARED_KEY_PASSWORD, ""));
+        }
+        changes.put(KEY_MIGRATED, "1");
+        if (!file.putAllIfAbsent(KEY_MIGRATED, changes)) {
+            // Another process migrated in the meantime and removes the preferences itself.
+            return;
+        }
+        sharedPreferences.edit()
+                .remove(Constants.SHARED_KEY_SERVER_URI)
+                .remove(Constants.SHARED_KEY_EMAIL)
+                .remove(Constants.SHARED_KEY_PASSWORD)
+                .commit();
+    }
+
+    @Override
+    protected StoredCredentials read() {
+        try {
+            final Map<String, String> values = getSettingsFile().getAll();
+            if (!values.containsKey(Constants.SHARED_KEY_SERVER_URI)) {
+                return null;
+            }
+            String password;
+            try {
+                password = KeystoreEncryption.decrypt(values.get(Constants.SHARED_KEY_PASSWORD));
+            } catch (GeneralSecurityException | IOException e) {
+                Log.w(TAG, "Could not decrypt the stored password", e);
+                password = "";
+            }
+            return new StoredCredentials(
+                    values.get(Constants.SHARED_KEY_SERVER_URI),
+                    values.get(Constants.SHARED_KEY_EMAIL),
+                    password == null ? "" : password);
+        } catch (IOException | RuntimeException e) {
+            // Anything escaping here would end the executor task without calling the waiting callbacks.
+            Log.w(TAG, "Could not read " + FILE_NAME, e);
+            return null;
+        }
+    }
+
+    @Override
+    protected void write(StoredCredentials credentials) {
+        final Map<String, String> changes = new HashMap<>();
+        if (credentials == null) {
+            changes.put(Constants.SHARED_KEY_SERVER_URI, null);
+            changes.put(Constants.SHARED_KEY_EMAIL, null);
+            changes.put(Constants.SHARED_KEY_PASSWORD, null);
+        } else {
+            changes.put(Constants.SHARED_KEY_SERVER_URI, credentials.getServerUri());
+            changes.put(Constants.SHARED_KEY_EMAIL, credentials.getEmailAddress());
+            try {
+                changes.put(Constants.SHARED_KEY_PASSWORD, KeystoreEncryption.encrypt(credentials.getPassword()));
+            } catch (GeneralSecurityException | IOException e) {
+                // Do not fall back to plain text when the Keystore is available but fails.
+                Log.w(TAG, "Could not encrypt the password, it will not be remembered", e);
+                changes.put(Constants.SHARED_KEY_PASSWORD, null);
+            }
+        }
+        try {
+            getSettingsFile().putAll(changes);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Could not write " + FILE_NAME, e);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A small string key-value file that can be shared between processes. The file is memory-mapped and holds a header
+ * followed by a log of put/remove records, which ends at the first zero op byte. Writers take an exclusive file lock
+ * and append their records with the op byte of the first one written last, so a writer that dies halfway leaves the
+ * previous log intact. Readers only re-read the records when the sequence number in the header changed. When the
+ * file is full, the live entries are written as a new log into free space, growing the file if needed, and the log
+ * start in the header is switched to it with a single write. A file that turns out to be corrupt is reset to empty.
+ * <p>
+ * File layout: magic (int), version (int), sequence (int), start of the log (int), then records of the form
+ * op (byte), key length (int), key (UTF-8), and for puts value length (int), value (UTF-8).
+ */
+public final class MappedSettingsFile {
+    private static final int MAGIC = 0x524c4b53;
+    private static final int VERSION = 2;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_SEQUENCE = 8;
+    private static final int OFFSET_START = 12;
+    private static final int HEADER_SIZE = 16;
+    private static final int INITIAL_SIZE = 4096;
+    private static final byte OP_END = 0;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Map<String, MappedSettingsFile> openFiles = new HashMap<>();
+
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final Map<String, String> values = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int loadedSequence = -1;
+    // The offsets of the first record and of the end marker of the log, as of the last read.
+    private int start;
+    private int end;
+
+    private MappedSettingsFile(File file) throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+        final FileLock lock = channel.lock();
+        try {
+            if (channel.size() < HEADER_SIZE + 1) {
+                randomAccessFile.setLength(INITIAL_SIZE);
+            }
+            map();
+            final int version = buffer.getInt(OFFSET_VERSION);
+            if (buffer.getInt(OFFSET_MAGIC) != MAGIC || version < VERSION) {
+                reset();
+            } else if (version != VERSION) {
+                throw new IOException("Unsupported settings file version: " + version);
+            } else if (!readRecords()) {
+                reset();
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Returns the shared instance for {@code file}, opening it if needed. Opening does disk I/O.
+     */
+    public static MappedSettingsFile open(File file) throws IOException {
+        final String path = file.getCanonicalPath();
+        synchronized (openFiles) {
+            MappedSettingsFile settingsFile = openFiles.get(path);
+            if (settingsFile == null) {
+                settingsFile = new MappedSettingsFile(file);
+                openFiles.put(path, settingsFile);
+            }
+            return settingsFile;
+        }
+    }
+
+    /**
+     * Returns whether another writer changed the file since this instance last read it. It only reads the header.
+     */
+    public synchronized boolean hasChanged() {
+        return buffer.getInt(OFFSET_SEQUENCE) != loadedSequence;
+    }
+
+    public synchronized String get(String key) throws IOException {
+        refresh();
+        return values.get(key);
+    }
+
+    public synchronized Map<String, String> getAll() throws IOException {
+        refresh();
+        return new HashMap<>(values);
+    }
+
+    /**
+     * Applies all {@code changes} atomically for readers. A {@code null} value removes the key.
+     */
+    public synchronized void putAll(Map<String, String> changes) throws IOException {
+        final FileLock lock = channel.lock();
+        try {
+            readLocked();
+            append(changes);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Same as {@link #putAll(Map)}, unless {@code key} is already set. The check and the write happen under the same
+     * file lock, so of several processes only one applies its changes.
+     *
+     * @return whether the changes were applied.
+     */
+    public synchronized boolean putAllIfAbsent(String key, Map<String, String> changes) throws IOException {
+        final FileLock lock = channel.lock();
+        try {
+            readLocked();
+            if (values.containsKey(key)) {
+                return false;
+            }
+            append(changes);
+            return true;
+        } finally {
+            lock.release();
+        }
+    }
+
+    private void refresh() throws IOException {
+        if (!hasChanged()) {
+            return;
+        }
+        final FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+        try {
+            remapIfGrown();
+            if (readRecords()) {
+                return;
+            }
+        } finally {
+            lock.release();
+        }
+        // Resetting needs the exclusive lock, and another process may have fixed the file in the meantime.
+        final FileLock exclusiveLock = channel.lock();
+        try {
+            readLocked();
+        } finally {
+            exclusiveLock.release();
+        }
+    }
+
+    // Reads the records under the exclusive lock, resetting the file if they are corrupt.
+    private void readLocked() throws IOException {
+        remapIfGrown();
+        if (!readRecords()) {
+            reset();
+        }
+    }
+
+    private void map() throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+
+    private void remapIfGrown() throws IOException {
+        if (channel.size() != buffer.capacity()) {
+            map();
+        }
+    }
+
+    // Empties the file. Must hold the exclusive lock.
+    private void reset() {
+        buffer.put(HEADER_SIZE, OP_END);
+        buffer.putInt(OFFSET_START, HEADER_SIZE);
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        buffer.putInt(OFFSET_SEQUENCE, buffer.getInt(OFFSET_SEQUENCE) + 1);
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        values.clear();
+        start = HEADER_SIZE;
+        end = HEADER_SIZE;
+        loadedSequence = buffer.getInt(OFFSET_SEQUENCE);
+    }
+
+    // Returns false if a record or the log start does not fit in the file, which leaves the values empty.
+    private boolean readRecords() {
+        values.clear();
+        if (!parseRecords()) {
+            values.clear();
+            return false;
+        }
+        loadedSequence = buffer.getInt(OFFSET_SEQUENCE);
+        return true;
+    }
+
+    private boolean parseRecords() {
+        final int capacity = buffer.capacity();
+        final int logStart = buffer.getInt(OFFSET_START);
+        if (logStart < HEADER_SIZE || logStart >= capacity) {
+            return false;
+        }
+        int position = logStart;
+        while (true) {
+            if (position >= capacity) {
+                return false;
+            }
+            final byte op = buffer.get(position);
+            if (op == OP_END) {
+                break;
+            }
+            if (op != OP_PUT && op != OP_REMOVE || capacity - position < 5) {
+                return false;
+            }
+            final int keyLength = buffer.getInt(position + 1);
+            if (keyLength < 0 || keyLength > capacity - position - 5) {
+                return false;
+            }
+            final String key = readString(position + 5, keyLength);
+            position += 5 + keyLength;
+            if (op == OP_PUT) {
+                if (capacity - position < 4) {
+                    return false;
+                }
+                final int valueLength = buffer.getInt(position);
+                if (valueLength < 0 || valueLength > capacity - position - 4) {
+                    return false;
+                }
+                values.put(key, readString(position + 4, valueLength));
+                position += 4 + valueLength;
+            } else {
+                values.remove(key);
+            }
+        }
+        start = logStart;
+        end = position;
+        return true;
+    }
+
+    // Appends the records for the changes after the log, or compacts the log if they do not fit. Must hold the
+    // exclusive lock, with the records just read.
+    private void append(Map<String, String> changes) throws IOException {
+        // Readers waiting for the lock re-read after this, whether or not the write below completes.
+        loadedSequence = buffer.getInt(OFFSET_SEQUENCE) + 1;
+        buffer.putInt(OFFSET_SEQUENCE, loadedSequence);
+
+        int recordsSize = 0;
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            recordsSize += recordSize(change.getKey(), change.getValue());
+        }
+        if (recordsSize == 0) {
+            return;
+        }
+        // A log starting in the front half may only fill that half, which keeps the back half free for compacting
+        // into, so the file only grows when the live entries no longer fit in half of it.
+        final int limit = start < buffer.capacity() / 2 ? buffer.capacity() / 2 : buffer.capacity();
+        if (end + recordsSize + 1 > limit) {
+            compact(changes, recordsSize);
+        } else {
+            end = writeRecords(end, changes);
+        }
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                values.remove(change.getKey());
+            } else {
+                values.put(change.getKey(), change.getValue());
+            }
+        }
+    }
+
+    // Writes the live entries with the changes applied as a new log into free space before or after the current log,
+    // growing the file if neither fits. The current log stays untouched until the log start is switched over.
+    private void compact(Map<String, String> changes, int recordsSize) throws IOException {
+        final Map<String, String> compacted = new HashMap<>(values);
+        int size = recordsSize + 1;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            size += recordSize(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                compacted.remove(change.getKey());
+            } else {
+                compacted.put(change.getKey(), change.getValue());
+            }
+        }
+        final int newStart;
+        if (HEADER_SIZE + size <= start) {
+            newStart = HEADER_SIZE;
+        } else {
+            newStart = end + 1;
+            if (newStart + size > buffer.capacity()) {
+                long capacity = buffer.capacity();
+                while (capacity < newStart + size) {
+                    capacity *= 2;
+                }
+                if (capacity > Integer.MAX_VALUE) {
+                    throw new IOException("Settings file too large");
+                }
+                randomAccessFile.setLength(capacity);
+                map();
+            }
+        }
+        end = writeRecords(newStart, compacted);
+        buffer.putInt(OFFSET_START, newStart);
+        start = newStart;
+    }
+
+    // Writes the records followed by an end marker, and then the op byte of the first record, which publishes them
+    // all at once. Returns the offset of the end marker.
+    private int writeRecords(int position, Map<String, String> records) {
+        final int recordsStart = position;
+        byte firstOp = OP_END;
+        for (Map.Entry<String, String> record : records.entrySet()) {
+            final byte op = record.getValue() == null ? OP_REMOVE : OP_PUT;
+            if (position == recordsStart) {
+                firstOp = op;
+                position = writeRecord(position, OP_END, record.getKey(), record.getValue());
+            } else {
+                position = writeRecord(position, op, record.getKey(), record.getValue());
+            }
+        }
+        buffer.put(position, OP_END);
+        buffer.put(recordsStart, firstOp);
+        return position;
+    }
+
+    private static int recordSize(String key, String value) {
+        int size = 5 + key.getBytes(UTF_8).length;
+        if (value != null) {
+            size += 4 + value.getBytes(UTF_8).length;
+        }
+        return size;
+    }
+
+    private int writeRecord(int position, byte op, String key, String value) {
+        final byte[] keyBytes = key.getBytes(UTF_8);
+        buffer.put(position, op);
+        buffer.putInt(position + 1, keyBytes.length);
+        position = writeBytes(position + 5, keyBytes);
+        if (value != null) {
+            final byte[] valueBytes = value.getBytes(UTF_8);
+            buffer.putInt(position, valueBytes.length);
+            position = writeBytes(position + 4, valueBytes);
+        }
+        return position;
+    }
+
+    private int writeBytes(int position, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(position + i, bytes[i]);
+        }
+        return position + bytes.length;
+    }
+
+    private String readString(int position, int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+}
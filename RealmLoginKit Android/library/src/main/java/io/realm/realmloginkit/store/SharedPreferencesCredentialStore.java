@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+import io.realm.realmloginkit.util.Constants;
+
+/**
+ * The default {@link CredentialStore}. It keeps the account in the LoginKit shared preferences under the
+ * {@code Constants.SHARED_KEY_*} keys, with the password encrypted by a Keystore key.
+ */
+public class SharedPreferencesCredentialStore extends BackgroundCredentialStore {
+    private static final String TAG = "LoginKit";
+
+    private final Context context;
+
+    public SharedPreferencesCredentialStore(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    private SharedPreferences getSharedPreferences() {
+        return context.getSharedPreferences(Constants.SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    protected StoredCredentials read() {
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        if (!sharedPreferences.contains(Constants.SHARED_KEY_SERVER_URI)) {
+            return null;
+        }
+        String password;
+        try {
+            password = KeystoreEncryption.decrypt(sharedPreferences.getString(Constants.SHARED_KEY_PASSWORD, ""));
+        } catch (GeneralSecurityException | IOException e) {
+            Log.w(TAG, "Could not decrypt the stored password", e);
+            password = "";
+        }
+        return new StoredCredentials(
+                sharedPreferences.getString(Constants.SHARED_KEY_SERVER_URI, ""),
+                sharedPreferences.getString(Constants.SHARED_KEY_EMAIL, ""),
+                password);
+    }
+
+    @Override
+    protected void write(StoredCredentials credentials) {
+        final SharedPreferences.Editor editor = getSharedPreferences().edit();
+        if (credentials == null) {
+            editor.remove(Constants.SHARED_KEY_SERVER_URI);
+            editor.remove(Constants.SHARED_KEY_EMAIL);
+            editor.remove(Constants.SHARED_KEY_PASSWORD);
+        } else {
+            editor.putString(Constants.SHARED_KEY_SERVER_URI, credentials.getServerUri());
+            editor.putString(Constants.SHARED_KEY_EMAIL, credentials.getEmailAddress());
+            try {
+                editor.putString(Constants.SHARED_KEY_PASSWORD, KeystoreEncryption.encrypt(credentials.getPassword()));
+            } catch (GeneralSecurityException | IOException e) {
+                // Do not fall back to plain text when the Keystore is available but fails.
+                Log.w(TAG, "Could not encrypt the password, it will not be remembered", e);
+                editor.remove(Constants.SHARED_KEY_PASSWORD);
+            }
+        }
+        editor.commit();
+    }
+}
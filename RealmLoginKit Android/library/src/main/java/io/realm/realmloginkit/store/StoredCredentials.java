@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.store;
+
+/**
+ * The account remembered by the login screens.
+ */
+public final class StoredCredentials {
+    private final String serverUri;
+    private final String emailAddress;
+    private final String password;
+
+    public StoredCredentials(String serverUri, String emailAddress, String password) {
+        this.serverUri = serverUri;
+        this.emailAddress = emailAddress;
+        this.password = password;
+    }
+
+    public String getServerUri() {
+        return serverUri;
+    }
+
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+}
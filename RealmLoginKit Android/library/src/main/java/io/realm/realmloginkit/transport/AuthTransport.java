@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.transport;
+
+import io.realm.RealmAsyncTask;
+import io.realm.SyncCredentials;
+import io.realm.SyncUser;
+
+/**
+ * Sends authentication requests to the Realm Object Server. Every login made by LoginKit, from the login screen or
+ * programmatically, goes through the transport returned by {@link AuthTransports#getDefault()}, which can be
+ * replaced, e.g. by an in-memory fake in tests.
+ */
+public interface AuthTransport {
+
+    /**
+     * Starts a login and calls {@code callback} on the main thread with the result.
+     *
+     * @return a task that cancels the login. After cancelling, {@code callback} must not be called.
+     */
+    RealmAsyncTask logIn(SyncCredentials credentials, String authUri, SyncUser.Callback callback);
+
+    /**
+     * Returns how many connections the logins sent so far reused and opened, or {@link ConnectionStats#UNKNOWN} if the
+     * transport cannot tell.
+     */
+    ConnectionStats getConnectionStats();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.realm.realmloginkit.transport;
+
+/**
+ * How many connections an {@link AuthTransport} reused and how many it had to open, each of which costs a TCP and,
+ * for HTTPS, a TLS handshake. A count is {@code -1} if the transport cannot tell.
+ */
+public final class ConnectionStats {
+    /**
+     * Returned by transports that do not see their connections, e.g. because the HTTP client belongs to Realm.
+     */
+    public static final ConnectionStats UNKNOWN = new ConnectionStats(-1, -1);
+
+    private final int reuseCount;
+    private final int handshakeCount;
+
+    public ConnectionStats(int reuseCount, int handshakeCount) {
+        this.reuseCount = reuseCount;
+        this.handshakeCount = handshakeCount;
+    }
+
+    /**
+     * @return how many requests were sent over a connection that was already open, or -1 if it is not known.
+     */
+    public int getReuseCount() {
+        return reuseCount;
+    }
+
+    /**
+     * @return how many connections were opened, or -1 if it is not known.
+     */
+    public int getHandshakeCount() {
+        return handshakeCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionStats{reuseCount=" + reuseCount + ", handshakeCount=" + handshakeCount + "}";
+    }
+}
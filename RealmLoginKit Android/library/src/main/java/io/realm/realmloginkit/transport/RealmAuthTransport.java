@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.transport;
+
+import io.realm.RealmAsyncTask;
+import io.realm.SyncCredentials;
+import io.realm.SyncUser;
+
+/**
+ * The default {@link AuthTransport}, which logs in with {@link SyncUser#loginAsync}. Realm sends the request with
+ * its own process-wide HTTP client, which keeps connections alive and reuses them across logins and token refreshes.
+ * That client does not tell how often it reused a connection, so the {@link ConnectionStats} are unknown.
+ */
+public class RealmAuthTransport implements AuthTransport {
+
+    @Override
+    public RealmAsyncTask logIn(SyncCredentials credentials, String authUri, SyncUser.Callback callback) {
+        return SyncUser.loginAsync(credentials, authUri, callback);
+    }
+
+    @Override
+    public ConnectionStats getConnectionStats() {
+        return ConnectionStats.UNKNOWN;
+    }
+}
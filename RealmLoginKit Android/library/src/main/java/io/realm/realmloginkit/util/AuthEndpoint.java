@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.util;
+
+/**
+ * A normalized authentication endpoint of a Realm Object Server, as produced by {@link UriHelper#parseAuthEndpoint(String)}.
+ */
+public final class AuthEndpoint {
+    private final String scheme;
+    private final String host;
+    private final int port;
+    private final String path;
+    private final String uri;
+
+    AuthEndpoint(String scheme, String host, int port, String path) {
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.uri = new StringBuilder(scheme.length() + host.length() + path.length() + 9)
+                .append(scheme).append("://").append(host).append(':').append(port).append(path)
+                .toString();
+    }
+
+    public String getScheme() {
+        return scheme;
+    }
+
+    /**
+     * Returns the host. IPv6 literals keep their enclosing brackets.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isSecure() {
+        return UriHelper.SCHEME_HTTPS.equals(scheme);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AuthEndpoint)) {
+            return false;
+        }
+        return uri.equals(((AuthEndpoint) o).uri);
+    }
+
+    @Override
+    public int hashCode() {
+        return uri.hashCode();
+    }
+
+    /**
+     * Returns the endpoint in the {@code scheme://host:port/path} form expected by {@code SyncUser.loginAsync()}.
+     */
+    @Override
+    public String toString() {
+        return uri;
+    }
+}
@@ -20,17 +20,43 @@ public class Constants {
     public static final String KEY_DARK_MODE = "DARK_MODE";
     public static final String KEY_APP_TITLE = "APP_TITLE";
     public static final String KEY_SERVER_URI = "SERVER_URI";
+    public static final String KEY_SERVER_URIS = "SERVER_URIS";
     public static final String KEY_HIDE_SERVER_URI = "HIDE_SERVER_URI";
+    public static final String KEY_LOGIN_REQUEST_ID = "LOGIN_REQUEST_ID";
+    public static final String KEY_RETRY_POLICY = "RETRY_POLICY";
+    public static final String KEY_REGISTER_MODE = "REGISTER_MODE";
+    public static final String KEY_ASYNC_INFLATION = "ASYNC_INFLATION";
+    public static final String KEY_LAUNCHED_AT = "LAUNCHED_AT";
+    public static final String KEY_FINISHED_AT = "FINISHED_AT";
+    public static final String KEY_RESULT_TOKEN = "RESULT_TOKEN";
+    public static final String KEY_WAIT_FOR_REALM = "WAIT_FOR_REALM";
+    public static final String KEY_OFFLINE_LOGIN = "OFFLINE_LOGIN";
+    public static final String KEY_MULTI_ACCOUNT = "MULTI_ACCOUNT";
 
     public static final String SHARED_PREFERENCES_NAME = "io.realm.realmloginkit";
     public static final String SHARED_KEY_SERVER_URI = "SHARED_KEY_SERVER_URI";
     public static final String SHARED_KEY_EMAIL = "SHARED_KEY_EMAIL";
     public static final String SHARED_KEY_PASSWORD = "SHARED_KEY_PASSWORD";
+    public static final String OFFLINE_SHARED_PREFERENCES_NAME = "io.realm.realmloginkit.offline";
+    public static final String ACCOUNTS_SHARED_PREFERENCES_NAME = "io.realm.realmloginkit.accounts";
 
     public static final int REQUEST_CODE_LOGIN = 200;
     public static final int RESULT_CODE_LOGIN_OK = 1;
 
+    /**
+     * @deprecated Sign-up is part of {@code RealmLoginActivity}, see {@code LoginKit.setRegisterMode()}. Will be
+     * removed in the next major version.
+     */
+    @Deprecated
     public static final int REQUEST_CODE_REGISTER = 300;
+    /**
+     * @deprecated Same as {@link #RESULT_CODE_LOGIN_OK}. Will be removed in the next major version.
+     */
+    @Deprecated
     public static final int RESULT_CODE_REGISTER = 1;
+    /**
+     * @deprecated No longer returned. Will be removed in the next major version.
+     */
+    @Deprecated
     public static final int RESULT_CODE_EXIT = 2;
 }
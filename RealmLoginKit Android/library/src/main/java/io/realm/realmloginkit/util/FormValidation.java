@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The rules that enable the submit buttons of the login and register screens.
+ */
+public class FormValidation {
+    public static final int FIELD_SERVER_URL = 0;
+    public static final int FIELD_EMAIL_ADDRESS = 1;
+    public static final int FIELD_PASSWORD = 2;
+    public static final int FIELD_CONFIRM_PASSWORD = 3;
+
+    private static final Pattern EMAIL_ADDRESS_PATTERN = Pattern.compile("[^@\\s]+@[^@\\s]+");
+
+    private static final FormValidator.Rule NOT_EMPTY = new FormValidator.Rule() {
+        @Override
+        public boolean isValid(CharSequence value) {
+            return value.length() > 0;
+        }
+    };
+
+    public static FormValidator.Rule notEmpty() {
+        return NOT_EMPTY;
+    }
+
+    /**
+     * Returns a rule that checks email addresses. The rule reuses a single {@link Matcher} and must not be shared
+     * between threads.
+     */
+    public static FormValidator.Rule emailAddress() {
+        return new FormValidator.Rule() {
+            private final Matcher matcher = EMAIL_ADDRESS_PATTERN.matcher("");
+
+            @Override
+            public boolean isValid(CharSequence value) {
+                return matcher.reset(value).matches();
+            }
+        };
+    }
+
+    public static FormValidator newLogInValidator() {
+        final FormValidator validator = new FormValidator();
+        validator.addField(notEmpty()); // FIELD_SERVER_URL
+        validator.addField(emailAddress()); // FIELD_EMAIL_ADDRESS
+        validator.addField(notEmpty()); // FIELD_PASSWORD
+        return validator;
+    }
+
+    public static FormValidator newRegisterValidator() {
+        final FormValidator validator = newLogInValidator();
+        validator.addMatchingField(notEmpty(), FIELD_PASSWORD); // FIELD_CONFIRM_PASSWORD
+        return validator;
+    }
+
+    public static boolean contentEquals(CharSequence a, CharSequence b) {
+        final int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
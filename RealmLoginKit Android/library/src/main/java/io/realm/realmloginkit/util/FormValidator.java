@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the validity of every field of a form, so that a change only re-checks the field that changed (and the fields
+ * that must match it). Values are kept as the {@link CharSequence} given, without copying, so an {@code Editable} can
+ * be passed as is. The listener is only called when the validity of the whole form flips.
+ * <p>
+ * It has no Android dependencies and can be used for any form; see
+ * {@link io.realm.realmloginkit.widget.ValidatingTextWatcher} to drive it from {@code EditText}s.
+ */
+public class FormValidator {
+
+    public interface Rule {
+        boolean isValid(CharSequence value);
+    }
+
+    public interface OnValidityChangeListener {
+        void onValidityChange(boolean isValid);
+    }
+
+    private static final class Field {
+        private final Rule rule;
+        private final Field mustMatch;
+        private final List<Field> dependents = new ArrayList<>();
+        private CharSequence value = "";
+        private boolean isEnabled = true;
+        private boolean isValid;
+
+        private Field(Rule rule, Field mustMatch) {
+            this.rule = rule;
+            this.mustMatch = mustMatch;
+        }
+    }
+
+    private final List<Field> fields = new ArrayList<>();
+    private OnValidityChangeListener listener;
+    private int invalidCount;
+    private boolean isValid = true;
+
+    public void setOnValidityChangeListener(OnValidityChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a field and returns its index, to be used with {@link #onFieldChanged(int, CharSequence)}.
+     */
+    public int addField(Rule rule) {
+        return addField(new Field(rule, null));
+    }
+
+    /**
+     * Adds a field that is only valid when it satisfies {@code rule} and equals the value of {@code mustMatchField},
+     * e.g. a password confirmation.
+     */
+    public int addMatchingField(Rule rule, int mustMatchField) {
+        final Field mustMatch = fields.get(mustMatchField);
+        final Field field = new Field(rule, mustMatch);
+        mustMatch.dependents.add(field);
+        return addField(field);
+    }
+
+    private int addField(Field field) {
+        fields.add(field);
+        field.isValid = true;
+        revalidate(field);
+        updateValidity();
+        return fields.size() - 1;
+    }
+
+    public void onFieldChanged(int index, CharSequence value) {
+        final Field field = fields.get(index);
+        field.value = value;
+        revalidate(field);
+        final List<Field> dependents = field.dependents;
+        for (int i = 0; i < dependents.size(); i++) {
+            revalidate(dependents.get(i));
+        }
+        updateValidity();
+    }
+
+    /**
+     * Disabled fields, e.g. fields that are hidden, always count as valid.
+     */
+    public void setFieldEnabled(int index, boolean isEnabled) {
+        final Field field = fields.get(index);
+        if (field.isEnabled == isEnabled) {
+            return;
+        }
+        field.isEnabled = isEnabled;
+        revalidate(field);
+        updateValidity();
+    }
+
+    public boolean isFieldValid(int index) {
+        return fields.get(index).isValid;
+    }
+
+    public boolean isValid() {
+        return isValid;
+    }
+
+    private void revalidate(Field field) {
+        boolean isFieldValid = !field.isEnabled || field.rule.isValid(field.value);
+        if (isFieldValid && field.isEnabled && field.mustMatch != null) {
+            isFieldValid = FormValidation.contentEquals(field.value, field.mustMatch.value);
+        }
+        if (isFieldValid != field.isValid) {
+            field.isValid = isFieldValid;
+            invalidCount += isFieldValid ? -1 : 1;
+        }
+    }
+
+    private void updateValidity() {
+        final boolean isFormValid = invalidCount == 0;
+        if (isFormValid == isValid) {
+            return;
+        }
+        isValid = isFormValid;
+        if (listener != null) {
+            listener.onValidityChange(isFormValid);
+        }
+    }
+}
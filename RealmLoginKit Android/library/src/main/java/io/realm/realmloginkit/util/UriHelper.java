@@ -16,37 +16,135 @@
 
 package io.realm.realmloginkit.util;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class UriHelper {
+    static final String SCHEME_HTTP = "http";
+    static final String SCHEME_HTTPS = "https";
+    private static final String SCHEME_DELIMITER = "://";
+    private static final String DEFAULT_PATH = "/auth";
+    private static final int DEFAULT_PORT = 9080;
+    private static final int DEFAULT_SECURE_PORT = 9443;
+    private static final int CACHE_SIZE = 16;
+
+    private static final Map<String, AuthEndpoint> cache = new LinkedHashMap<String, AuthEndpoint>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AuthEndpoint> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Returns the normalized authentication URL for {@code uri}, see {@link #parseAuthEndpoint(String)}.
+     *
+     * @throws IllegalArgumentException if {@code uri} cannot be parsed.
+     */
     public static String getValidAuthUri(String uri) {
-        String scheme = "http";
-        String host = uri;
-        String path = "/auth";
-        int port = 9080;
+        return parseAuthEndpoint(uri).toString();
+    }
+
+    /**
+     * Parses a server URI as typed by the user into an authentication endpoint. Missing parts fall back to
+     * {@code http}, port 9080 (9443 for {@code https} and {@code realms}) and path {@code /auth}. User info, query and
+     * fragment are dropped. Results are memoized per input.
+     *
+     * @throws IllegalArgumentException if an IPv6 address is not terminated by {@code ]}, or a
+     * {@link NumberFormatException} if the port is not a valid number.
+     */
+    public static AuthEndpoint parseAuthEndpoint(String uri) {
+        synchronized (cache) {
+            final AuthEndpoint cached = cache.get(uri);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final AuthEndpoint endpoint = parse(uri);
+        synchronized (cache) {
+            cache.put(uri, endpoint);
+        }
+        return endpoint;
+    }
+
+    private static AuthEndpoint parse(String uri) {
+        final int length = uri.length();
+        String scheme = SCHEME_HTTP;
+        int port = DEFAULT_PORT;
 
-        final String delimiter = "://";
-        final int schemeEnd = uri.indexOf("://");
+        int authorityStart = 0;
+        final int schemeEnd = uri.indexOf(SCHEME_DELIMITER);
         if (schemeEnd != -1) {
-            final String lowerCase = uri.toLowerCase();
-            if (lowerCase.startsWith("https") || lowerCase.startsWith("realms")) {
-                port = 9443;
-                scheme = "https";
+            if (uri.regionMatches(true, 0, "https", 0, 5) || uri.regionMatches(true, 0, "realms", 0, 6)) {
+                scheme = SCHEME_HTTPS;
+                port = DEFAULT_SECURE_PORT;
             }
-            host = host.substring(schemeEnd + delimiter.length());
+            authorityStart = schemeEnd + SCHEME_DELIMITER.length();
         }
 
-        final int pathStart = host.indexOf('/');
-        if (pathStart != -1) {
-            path = host.substring(pathStart);
-            host = host.substring(0, pathStart);
+        // A single scan finds the end of the authority and the last '@' of any user info within it.
+        int authorityEnd = length;
+        int hostStart = authorityStart;
+        boolean inBrackets = false;
+        for (int i = authorityStart; i < length; i++) {
+            final char c = uri.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                authorityEnd = i;
+                break;
+            } else if (c == '@') {
+                hostStart = i + 1;
+                inBrackets = false;
+            } else if (c == '[') {
+                inBrackets = true;
+            } else if (c == ']') {
+                inBrackets = false;
+            }
+        }
+        if (inBrackets) {
+            throw new IllegalArgumentException("Unterminated IPv6 address: " + uri);
+        }
+
+        int hostEnd = authorityEnd;
+        final int portSearchStart;
+        if (hostStart < authorityEnd && uri.charAt(hostStart) == '[') {
+            portSearchStart = uri.indexOf(']', hostStart) + 1;
+            hostEnd = portSearchStart;
+        } else {
+            portSearchStart = hostStart;
+        }
+        for (int i = portSearchStart; i < authorityEnd; i++) {
+            if (uri.charAt(i) == ':') {
+                hostEnd = Math.min(hostEnd, i);
+                if (i + 1 < authorityEnd) {
+                    port = parsePort(uri, i + 1, authorityEnd);
+                }
+                break;
+            }
         }
 
-        final int portStart = host.indexOf(":");
-        if (portStart != -1) {
-            port = Integer.parseInt(host.substring(portStart + 1));
-            host = host.substring(0, portStart);
+        String path = DEFAULT_PATH;
+        if (authorityEnd < length && uri.charAt(authorityEnd) == '/') {
+            int pathEnd = authorityEnd + 1;
+            while (pathEnd < length && uri.charAt(pathEnd) != '?' && uri.charAt(pathEnd) != '#') {
+                pathEnd++;
+            }
+            path = uri.substring(authorityEnd, pathEnd);
         }
 
-        final String authUri = String.format("%1$s://%2$s:%3$d%4$s", scheme, host, port, path);
-        return authUri;
+        return new AuthEndpoint(scheme, uri.substring(hostStart, hostEnd), port, path);
+    }
+
+    private static int parsePort(String uri, int start, int end) {
+        int port = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = uri.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || port > 65535) {
+                throw new NumberFormatException("Invalid port in: " + uri);
+            }
+            port = port * 10 + digit;
+        }
+        if (port > 65535) {
+            throw new NumberFormatException("Invalid port in: " + uri);
+        }
+        return port;
     }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.widget;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**
+ * A process-wide cache of rendered {@link RealmLogoView} bitmaps. Views that opt in with {@code realm:useBitmapCache}
+ * render each distinct size and style once, and then draw the cached bitmap.
+ */
+public class LogoBitmapCache implements ComponentCallbacks2 {
+    public static final int DEFAULT_MAX_SIZE_BYTES = 4 * 1024 * 1024;
+
+    private static LogoBitmapCache instance;
+
+    private LruCache<Key, Bitmap> cache = newCache(DEFAULT_MAX_SIZE_BYTES);
+    private int maxSizeBytes = DEFAULT_MAX_SIZE_BYTES;
+    private boolean isRegistered;
+    private int hitCount;
+    private int missCount;
+
+    private LogoBitmapCache() {
+    }
+
+    public static synchronized LogoBitmapCache getInstance() {
+        if (instance == null) {
+            instance = new LogoBitmapCache();
+        }
+        return instance;
+    }
+
+    private static LruCache<Key, Bitmap> newCache(int maxSizeBytes) {
+        return new LruCache<Key, Bitmap>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getRowBytes() * bitmap.getHeight();
+            }
+        };
+    }
+
+    synchronized void register(Context context) {
+        if (isRegistered) {
+            return;
+        }
+        context.getApplicationContext().registerComponentCallbacks(this);
+        isRegistered = true;
+    }
+
+    synchronized Bitmap get(Key key) {
+        final Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return bitmap;
+    }
+
+    synchronized void put(Key key, Bitmap bitmap) {
+        cache.put(key, bitmap);
+    }
+
+    public synchronized int getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    /**
+     * Changes the byte budget of the cache. Already cached bitmaps are dropped.
+     */
+    public synchronized void setMaxSizeBytes(int maxSizeBytes) {
+        if (maxSizeBytes <= 0) {
+            throw new IllegalArgumentException("maxSizeBytes must be positive: " + maxSizeBytes);
+        }
+        if (maxSizeBytes == this.maxSizeBytes) {
+            return;
+        }
+        this.maxSizeBytes = maxSizeBytes;
+        cache.evictAll();
+        cache = newCache(maxSizeBytes);
+    }
+
+    public synchronized int getSizeBytes() {
+        return cache.size();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    public synchronized void evictAll() {
+        cache.evictAll();
+    }
+
+    @Override
+    public synchronized void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            cache.evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(maxSizeBytes / 2);
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictAll();
+    }
+
+    static final class Key {
+        private final int width;
+        private final int height;
+        private final int measuredWidth;
+        private final int measuredHeight;
+        private final boolean isMonochrome;
+        private final float strokeWidth;
+        private final int strokeColor;
+        private final int backgroundColor;
+
+        // The logo is drawn at the measured size, centered in the view, so both sizes decide the bitmap.
+        Key(int width, int height, int measuredWidth, int measuredHeight, boolean isMonochrome, float strokeWidth,
+                int strokeColor, int backgroundColor) {
+            this.width = width;
+            this.height = height;
+            this.measuredWidth = measuredWidth;
+            this.measuredHeight = measuredHeight;
+            this.isMonochrome = isMonochrome;
+            // Stroke and background are not drawn in color mode, so they must not split the cache entries.
+            this.strokeWidth = isMonochrome ? strokeWidth : 0;
+            this.strokeColor = isMonochrome ? strokeColor : 0;
+            this.backgroundColor = isMonochrome ? backgroundColor : 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return width == key.width
+                    && height == key.height
+                    && measuredWidth == key.measuredWidth
+                    && measuredHeight == key.measuredHeight
+                    && isMonochrome == key.isMonochrome
+                    && Float.compare(strokeWidth, key.strokeWidth) == 0
+                    && strokeColor == key.strokeColor
+                    && backgroundColor == key.backgroundColor;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + measuredWidth;
+            result = 31 * result + measuredHeight;
+            result = 31 * result + (isMonochrome ? 1 : 0);
+            result = 31 * result + Float.floatToIntBits(strokeWidth);
+            result = 31 * result + strokeColor;
+            result = 31 * result + backgroundColor;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.widget;
+
+/**
+ * The outline of the Realm logo in a unit square, free of any Android dependency. Each face starts with a
+ * {@code moveTo} point (2 floats) followed by {@code cubicTo} segments (6 floats each).
+ */
+public final class LogoGeometry {
+    public static final int FACE_COUNT = 8;
+
+    static final float[][] FACES = {
+            {
+                    0.71438f, 0.04816f,
+                    0.64941f, 0.01728f, 0.57672f, 0.00000f, 0.50000f, 0.00000f,
+                    0.36616f, 0.00000f, 0.24459f, 0.05259f, 0.15485f, 0.13823f,
+                    0.05944f, 0.22929f, 0.88326f, 0.12843f, 0.71438f, 0.04816f,
+            },
+            {
+                    0.89062f, 0.18785f,
+                    0.89119f, 0.18856f, 0.84984f, 0.24383f, 0.72555f, 0.25952f,
+                    0.47470f, 0.29119f, 0.04403f, 0.29454f, 0.04467f, 0.29312f,
+                    0.07132f, 0.23457f, 0.10892f, 0.18207f, 0.15485f, 0.13823f,
+                    0.20898f, 0.15513f, 0.26789f, 0.15934f, 0.32362f, 0.14907f,
+                    0.41563f, 0.13224f, 0.49750f, 0.07907f, 0.58851f, 0.05741f,
+                    0.62891f, 0.04770f, 0.67292f, 0.04487f, 0.71438f, 0.04816f,
+                    0.78326f, 0.08090f, 0.84346f, 0.12892f, 0.89062f, 0.18785f,
+            },
+            {
+                    0.99390f, 0.42168f,
+                    0.99422f, 0.42369f, 0.42823f, 0.47689f, 0.15246f, 0.46139f,
+                    0.06261f, 0.45633f, 0.00959f, 0.40201f, 0.01020f, 0.39905f,
+                    0.01777f, 0.36208f, 0.02943f, 0.32661f, 0.04468f, 0.29311f,
+                    0.12435f, 0.24951f, 0.21808f, 0.22434f, 0.30896f, 0.22533f,
+                    0.42294f, 0.22650f, 0.53475f, 0.26450f, 0.64873f, 0.26167f,
+                    0.73338f, 0.25951f, 0.81869f, 0.23250f, 0.89062f, 0.18785f,
+                    0.94362f, 0.25409f, 0.98013f, 0.33411f, 0.99390f, 0.42168f,
+            },
+            {
+                    1.00000f, 0.50000f,
+                    1.00000f, 0.50277f, 0.99993f, 0.50830f, 0.99993f, 0.50830f,
+                    0.99993f, 0.50830f, 0.84273f, 0.54795f, 0.64027f, 0.54558f,
+                    0.35669f, 0.54227f, 0.00001f, 0.49653f, 0.00002f, 0.49569f,
+                    0.00030f, 0.46251f, 0.00381f, 0.43011f, 0.01025f, 0.39877f,
+                    0.07819f, 0.44069f, 0.16059f, 0.46123f, 0.23989f, 0.45258f,
+                    0.30295f, 0.44575f, 0.36285f, 0.42242f, 0.42126f, 0.39758f,
+                    0.47966f, 0.37275f, 0.53773f, 0.34608f, 0.59946f, 0.33175f,
+                    0.69014f, 0.31075f, 0.78715f, 0.31808f, 0.87383f, 0.35225f,
+                    0.91601f, 0.36888f, 0.95785f, 0.39279f, 0.99389f, 0.42162f,
+                    0.99791f, 0.44716f, 1.00000f, 0.47334f, 1.00000f, 0.50000f,
+            },
+            {
+                    0.43295f, 0.66235f,
+                    0.28294f, 0.69005f, 0.02550f, 0.65810f, 0.02486f, 0.65612f,
+                    0.00873f, 0.60700f, 0.00000f, 0.55452f, 0.00000f, 0.50000f,
+                    0.00000f, 0.49856f, 0.00001f, 0.49712f, 0.00002f, 0.49568f,
+                    0.02279f, 0.47763f, 0.04939f, 0.46153f, 0.07536f, 0.44901f,
+                    0.13959f, 0.41785f, 0.21246f, 0.40485f, 0.28351f, 0.41185f,
+                    0.35373f, 0.41885f, 0.42078f, 0.44485f, 0.48568f, 0.47285f,
+                    0.54035f, 0.49644f, 0.59466f, 0.52192f, 0.65141f, 0.53953f,
+                    0.65697f, 0.54125f, 0.59808f, 0.63185f, 0.43295f, 0.66235f,
+            },
+            {
+                    0.98196f, 0.63356f,
+                    0.97149f, 0.65126f, 0.87186f, 0.71085f, 0.73682f, 0.72106f,
+                    0.55801f, 0.73457f, 0.34678f, 0.68052f, 0.41685f, 0.65301f,
+                    0.52717f, 0.60968f, 0.62284f, 0.53185f, 0.73682f, 0.49935f,
+                    0.82196f, 0.47496f, 0.91635f, 0.47881f, 0.99993f, 0.50829f,
+                    0.99923f, 0.55161f, 0.99302f, 0.59359f, 0.98196f, 0.63356f,
+            },
+            {
+                    0.93357f, 0.74920f,
+                    0.84724f, 0.89909f, 0.22106f, 0.93668f, 0.12958f, 0.83585f,
+                    0.08302f, 0.78452f, 0.04697f, 0.72348f, 0.02486f, 0.65612f,
+                    0.10175f, 0.61217f, 0.19177f, 0.59350f, 0.27829f, 0.60533f,
+                    0.39027f, 0.62067f, 0.49060f, 0.68317f, 0.60109f, 0.70750f,
+                    0.69027f, 0.72717f, 0.78478f, 0.72100f, 0.87064f, 0.69000f,
+                    0.90945f, 0.67588f, 0.94793f, 0.65695f, 0.98196f, 0.63356f,
+                    0.97066f, 0.67444f, 0.95429f, 0.71323f, 0.93357f, 0.74920f,
+            },
+            {
+                    0.93429f, 0.74794f,
+                    0.84814f, 0.89853f, 0.68592f, 1.00000f, 0.50000f, 1.00000f,
+                    0.35311f, 1.00000f, 0.22101f, 0.93666f, 0.12953f, 0.83580f,
+                    0.14471f, 0.84160f, 0.16169f, 0.84662f, 0.17725f, 0.85100f,
+                    0.26428f, 0.87500f, 0.35795f, 0.87433f, 0.44448f, 0.84883f,
+                    0.49988f, 0.83250f, 0.55196f, 0.80650f, 0.60637f, 0.78683f,
+                    0.71020f, 0.74939f, 0.82447f, 0.73621f, 0.93429f, 0.74794f,
+            },
+    };
+
+    private LogoGeometry() {
+    }
+
+    public static int getFaceLength(int face) {
+        return FACES[face].length;
+    }
+
+    /**
+     * Projects a face onto the rectangle at ({@code left}, {@code top}) with the given size, writing the coordinates
+     * into {@code out}, which must hold at least {@link #getFaceLength(int)} floats.
+     */
+    public static void projectFace(int face, float left, float top, float width, float height, float[] out) {
+        final float[] unit = FACES[face];
+        for (int i = 0; i < unit.length; i += 2) {
+            out[i] = left + width * unit[i];
+            out[i + 1] = top + height * unit[i + 1];
+        }
+    }
+}
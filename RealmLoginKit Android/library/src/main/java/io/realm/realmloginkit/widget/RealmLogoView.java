@@ -17,7 +17,9 @@
 package io.realm.realmloginkit.widget;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
@@ -30,12 +32,34 @@ import io.realm.realmloginkit.R;
 
 public class RealmLogoView extends View {
 
-    private Paint paint1, paint2, paint3, paint4, paint5, paint6, paint7, paint8, backgroundPaint, strokePaint;
-    private Path path1, path2, path3, path4, path5, path6, path7, path8;
+    private static final int FACE_COUNT = LogoGeometry.FACE_COUNT;
+    private static final int DEFAULT_SIZE_DP = 100;
+    private static final int[][] FACE_COLORS = {
+            {252, 195, 151},
+            {252, 160, 149},
+            {247, 124, 136},
+            {242, 81, 146},
+            {211, 76, 163},
+            {154, 80, 165},
+            {89, 86, 158},
+            {57, 71, 127},
+    };
+
+    private final Paint[] facePaints = new Paint[FACE_COUNT];
+    private final Path[] facePaths = new Path[FACE_COUNT];
+    // The logo faces projected to the view size. They are only recomputed in onSizeChanged() and on style changes.
+    private final float[][] facePoints = new float[FACE_COUNT][];
+    private final TypedValue typedValue = new TypedValue();
+    private Paint backgroundPaint, strokePaint;
     private DisplayMetrics displayMetrics;
     private float strokeWidth = -1;
     private boolean isMonochromeLogo = false;
     private int strokeColor = 0xff000000;
+    private boolean useBitmapCache = false;
+    private float sizeFraction = 0;
+    private int faceWidth, faceHeight;
+    private LogoBitmapCache.Key bitmapCacheKey;
+    private Bitmap cachedBitmap;
 
     public RealmLogoView(Context context) {
         this(context, null);
@@ -58,21 +82,26 @@ public class RealmLogoView extends View {
             strokeWidth = typedArray.getDimension(R.styleable.RealmLogoView_strokeWidth, strokeWidth);
             isMonochromeLogo = typedArray.getBoolean(R.styleable.RealmLogoView_monochromeLogo, isMonochromeLogo);
             strokeColor = typedArray.getColor(R.styleable.RealmLogoView_strokeColor, strokeColor);
+            useBitmapCache = typedArray.getBoolean(R.styleable.RealmLogoView_useBitmapCache, useBitmapCache);
+            sizeFraction = clampSizeFraction(typedArray.getFloat(R.styleable.RealmLogoView_logoSizeFraction, sizeFraction));
         } finally {
             typedArray.recycle();
         }
+
+        initPaths();
+        initPaints();
+        if (useBitmapCache) {
+            LogoBitmapCache.getInstance().register(context);
+        }
     }
 
-    private void initPathsForPaints() {
+    private void initPaths() {
         // If we use only one path, we cannot use 8 paints.
-        path1 = new Path();
-        path2 = new Path();
-        path3 = new Path();
-        path4 = new Path();
-        path5 = new Path();
-        path6 = new Path();
-        path7 = new Path();
-        path8 = new Path();
+        for (int i = 0; i < FACE_COUNT; i++) {
+            facePaths[i] = new Path();
+            facePaths[i].setFillType(Path.FillType.EVEN_ODD);
+            facePoints[i] = new float[LogoGeometry.getFaceLength(i)];
+        }
     }
 
     private Paint makeAntiAliasPaint(int a, int r, int g, int b) {
@@ -83,26 +112,15 @@ public class RealmLogoView extends View {
     }
 
     private void initPaints() {
-        paint1 = makeAntiAliasPaint(255, 252, 195, 151);
-        paint2 = makeAntiAliasPaint(255, 252, 160, 149);
-        paint3 = makeAntiAliasPaint(255, 247, 124, 136);
-        paint4 = makeAntiAliasPaint(255, 242, 81, 146);
-        paint5 = makeAntiAliasPaint(255, 211, 76, 163);
-        paint6 = makeAntiAliasPaint(255, 154, 80, 165);
-        paint7 = makeAntiAliasPaint(255, 89, 86, 158);
-        paint8 = makeAntiAliasPaint(255, 57, 71, 127);
-
-        TypedValue typedValue = new TypedValue();
-        getContext().getTheme().resolveAttribute(android.R.attr.windowBackground, typedValue, true);
-        if (typedValue.type >= TypedValue.TYPE_FIRST_COLOR_INT && typedValue.type <= TypedValue.TYPE_LAST_COLOR_INT) {
-            int color = typedValue.data;
-            backgroundPaint = new Paint();
-            backgroundPaint.setColor(color);
-            backgroundPaint.setAntiAlias(true);
-        } else {
-            backgroundPaint = makeAntiAliasPaint(255, 255, 255, 255);
+        for (int i = 0; i < FACE_COUNT; i++) {
+            final int[] rgb = FACE_COLORS[i];
+            facePaints[i] = makeAntiAliasPaint(255, rgb[0], rgb[1], rgb[2]);
         }
 
+        backgroundPaint = new Paint();
+        backgroundPaint.setAntiAlias(true);
+        updateBackgroundColor();
+
         strokePaint = new Paint();
         strokePaint.setAntiAlias(true);
         strokePaint.setColor(strokeColor);
@@ -110,6 +128,43 @@ public class RealmLogoView extends View {
         strokePaint.setStyle(Paint.Style.STROKE);
     }
 
+    private void updateBackgroundColor() {
+        getContext().getTheme().resolveAttribute(android.R.attr.windowBackground, typedValue, true);
+        if (typedValue.type >= TypedValue.TYPE_FIRST_COLOR_INT && typedValue.type <= TypedValue.TYPE_LAST_COLOR_INT) {
+            backgroundPaint.setColor(typedValue.data);
+        } else {
+            backgroundPaint.setARGB(255, 255, 255, 255);
+        }
+        invalidateCachedBitmap();
+    }
+
+    private void invalidateCachedBitmap() {
+        bitmapCacheKey = null;
+        cachedBitmap = null;
+    }
+
+    private void updateFacePaths() {
+        final int outline = isMonochromeLogo ? (int) Math.floor(strokeWidth / 2.0) : 0;
+        final int measuredWidth = getMeasuredWidth();
+        final int measuredHeight = getMeasuredHeight();
+        faceWidth = measuredWidth;
+        faceHeight = measuredHeight;
+        final int l = outline + ((getWidth() - measuredWidth) / 2);
+        final int t = outline + ((getHeight() - measuredHeight) / 2);
+
+        for (int i = 0; i < FACE_COUNT; i++) {
+            final float[] points = facePoints[i];
+            LogoGeometry.projectFace(i, l, t, measuredWidth - outline * 2, measuredHeight - outline * 2, points);
+            final Path path = facePaths[i];
+            path.rewind();
+            path.moveTo(points[0], points[1]);
+            for (int j = 2; j < points.length; j += 6) {
+                path.cubicTo(points[j], points[j + 1], points[j + 2], points[j + 3], points[j + 4], points[j + 5]);
+            }
+        }
+        invalidateCachedBitmap();
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
@@ -117,68 +172,89 @@ public class RealmLogoView extends View {
         final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         final int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
-        int width, height;
-
-        switch(widthMode) {
-            case MeasureSpec.EXACTLY:
-                width = widthSize;
-                break;
-            default:
-                super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-                return;
+        // The logo is always square, so a single pass can settle the final size in every MeasureSpec mode.
+        final int widthBound = widthMode == MeasureSpec.UNSPECIFIED ? Integer.MAX_VALUE : widthSize;
+        final int heightBound = heightMode == MeasureSpec.UNSPECIFIED ? Integer.MAX_VALUE : heightSize;
+
+        int size;
+        if (widthMode == MeasureSpec.EXACTLY && heightMode == MeasureSpec.EXACTLY) {
+            size = Math.min(widthSize, heightSize);
+        } else if (widthMode == MeasureSpec.EXACTLY) {
+            size = Math.min(widthSize, heightBound);
+        } else if (heightMode == MeasureSpec.EXACTLY) {
+            size = Math.min(heightSize, widthBound);
+        } else {
+            final int bound = Math.min(widthBound, heightBound);
+            if (sizeFraction > 0 && bound != Integer.MAX_VALUE) {
+                size = Math.round(bound * sizeFraction);
+            } else {
+                size = Math.min(Math.round(DEFAULT_SIZE_DP * displayMetrics.density), bound);
+            }
         }
 
-        switch(heightMode) {
-            case MeasureSpec.EXACTLY:
-                height = heightSize;
-                break;
-            default:
-                super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-                return;
-        }
+        size = Math.max(size, Math.max(getSuggestedMinimumWidth(), getSuggestedMinimumHeight()));
+        // The minimum size must not push the logo past a bound. A non-square exact size centers the logo in the view.
+        size = Math.min(size, Math.min(widthBound, heightBound));
+        setMeasuredDimension(size, size);
+    }
 
-        width = Math.min(width, height);
-        height = width;
-        setMeasuredDimension(width, height);
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateFacePaths();
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
+        if (changed || faceWidth != getMeasuredWidth() || faceHeight != getMeasuredHeight()) {
+            // The measured size can change without the view size changing, which moves the logo inside the view.
+            updateFacePaths();
+        }
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        updateBackgroundColor();
+        invalidate();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        initPaints();
-        initPathsForPaints();
+        if (useBitmapCache && getWidth() > 0 && getHeight() > 0) {
+            canvas.drawBitmap(getCachedBitmap(), 0, 0, null);
+            return;
+        }
+        drawFaces(canvas);
+    }
 
-        int t, l, outline;
-        if (isMonochromeLogo) {
-            t = (int) Math.floor(strokeWidth / 2.0);
-            l = t;
-            outline = t;
-        } else {
-            t = 0;
-            l = 0;
-            outline = 0;
+    private void drawFaces(Canvas canvas) {
+        for (int i = 0; i < FACE_COUNT; i++) {
+            drawPath(canvas, facePaths[i], facePaints[i]);
         }
+    }
 
-        int w = getWidth();
-        int h = getHeight();
-        final int measuredWidth = getMeasuredWidth();
-        final int measuredHeight = getMeasuredHeight();
-        l += ((w - measuredWidth) / 2);
-        t += ((h - measuredHeight) / 2);
-        drawFace1(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
-        drawFace2(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
-        drawFace3(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
-        drawFace4(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
-        drawFace5(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
-        drawFace6(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
-        drawFace7(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
-        drawFace8(canvas, t, l, measuredWidth - outline * 2, measuredHeight - outline * 2);
+    private Bitmap getCachedBitmap() {
+        // The bitmap is looked up once per style or size change, and drawn directly on every other frame.
+        if (cachedBitmap != null) {
+            return cachedBitmap;
+        }
+        final LogoBitmapCache cache = LogoBitmapCache.getInstance();
+        if (bitmapCacheKey == null) {
+            bitmapCacheKey = new LogoBitmapCache.Key(getWidth(), getHeight(), getMeasuredWidth(), getMeasuredHeight(),
+                    isMonochromeLogo, strokeWidth, strokeColor, backgroundPaint.getColor());
+        }
+        Bitmap bitmap = cache.get(bitmapCacheKey);
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            drawFaces(new Canvas(bitmap));
+            cache.put(bitmapCacheKey, bitmap);
+        }
+        cachedBitmap = bitmap;
+        return bitmap;
     }
 
     private void drawPath(Canvas canvas, Path path, Paint paint) {
@@ -190,129 +266,82 @@ public class RealmLogoView extends View {
         }
     }
 
-    private void drawFace1(Canvas canvas, int t, int l, int w, int h) {
-        path1.moveTo(l + w * 0.71438f, t + h * 0.04816f);
-        path1.cubicTo(l + w * 0.64941f, t + h * 0.01728f, l + w * 0.57672f, t + h * 0.00000f, l + w * 0.50000f, t + h * 0.00000f);
-        path1.cubicTo(l + w * 0.36616f, t + h * 0.00000f, l + w * 0.24459f, t + h * 0.05259f, l + w * 0.15485f, t + h * 0.13823f);
-        path1.cubicTo(l + w * 0.05944f, t + h * 0.22929f, l + w * 0.88326f, t + h * 0.12843f, l + w * 0.71438f, t + h * 0.04816f);
-        path1.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path1, paint1);
-    }
-
-    private void drawFace2(Canvas canvas, int t, int l, int w, int h) {
-        path2.moveTo(l + w * 0.89062f, t + h * 0.18785f);
-        path2.cubicTo(l + w * 0.89119f, t + h * 0.18856f, l + w * 0.84984f, t + h * 0.24383f, l + w * 0.72555f, t + h * 0.25952f);
-        path2.cubicTo(l + w * 0.47470f, t + h * 0.29119f, l + w * 0.04403f, t + h * 0.29454f, l + w * 0.04467f, t + h * 0.29312f);
-        path2.cubicTo(l + w * 0.07132f, t + h * 0.23457f, l + w * 0.10892f, t + h * 0.18207f, l + w * 0.15485f, t + h * 0.13823f);
-        path2.cubicTo(l + w * 0.20898f, t + h * 0.15513f, l + w * 0.26789f, t + h * 0.15934f, l + w * 0.32362f, t + h * 0.14907f);
-        path2.cubicTo(l + w * 0.41563f, t + h * 0.13224f, l + w * 0.49750f, t + h * 0.07907f, l + w * 0.58851f, t + h * 0.05741f);
-        path2.cubicTo(l + w * 0.62891f, t + h * 0.04770f, l + w * 0.67292f, t + h * 0.04487f, l + w * 0.71438f, t + h * 0.04816f);
-        path2.cubicTo(l + w * 0.78326f, t + h * 0.08090f, l + w * 0.84346f, t + h * 0.12892f, l + w * 0.89062f, t + h * 0.18785f);
-        path2.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path2, paint2);
-    }
-
-    private void drawFace3(Canvas canvas, int t, int l, int w, int h) {
-        path3.moveTo(l + w * 0.99390f, t + h * 0.42168f);
-        path3.cubicTo(l + w * 0.99422f, t + h * 0.42369f, l + w * 0.42823f, t + h * 0.47689f, l + w * 0.15246f, t + h * 0.46139f);
-        path3.cubicTo(l + w * 0.06261f, t + h * 0.45633f, l + w * 0.00959f, t + h * 0.40201f, l + w * 0.01020f, t + h * 0.39905f);
-        path3.cubicTo(l + w * 0.01777f, t + h * 0.36208f, l + w * 0.02943f, t + h * 0.32661f, l + w * 0.04468f, t + h * 0.29311f);
-        path3.cubicTo(l + w * 0.12435f, t + h * 0.24951f, l + w * 0.21808f, t + h * 0.22434f, l + w * 0.30896f, t + h * 0.22533f);
-        path3.cubicTo(l + w * 0.42294f, t + h * 0.22650f, l + w * 0.53475f, t + h * 0.26450f, l + w * 0.64873f, t + h * 0.26167f);
-        path3.cubicTo(l + w * 0.73338f, t + h * 0.25951f, l + w * 0.81869f, t + h * 0.23250f, l + w * 0.89062f, t + h * 0.18785f);
-        path3.cubicTo(l + w * 0.94362f, t + h * 0.25409f, l + w * 0.98013f, t + h * 0.33411f, l + w * 0.99390f, t + h * 0.42168f);
-        path3.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path3, paint3);
+    public boolean isMonochromeLogo() {
+        return isMonochromeLogo;
     }
 
-    private void drawFace4(Canvas canvas, int t, int l, int w, int h) {
-        path4.moveTo(l + w * 1.00000f, t + h * 0.50000f);
-        path4.cubicTo(l + w * 1.00000f, t + h * 0.50277f, l + w * 0.99993f, t + h * 0.50830f, l + w * 0.99993f, t + h * 0.50830f);
-        path4.cubicTo(l + w * 0.99993f, t + h * 0.50830f, l + w * 0.84273f, t + h * 0.54795f, l + w * 0.64027f, t + h * 0.54558f);
-        path4.cubicTo(l + w * 0.35669f, t + h * 0.54227f, l + w * 0.00001f, t + h * 0.49653f, l + w * 0.00002f, t + h * 0.49569f);
-        path4.cubicTo(l + w * 0.00030f, t + h * 0.46251f, l + w * 0.00381f, t + h * 0.43011f, l + w * 0.01025f, t + h * 0.39877f);
-        path4.cubicTo(l + w * 0.07819f, t + h * 0.44069f, l + w * 0.16059f, t + h * 0.46123f, l + w * 0.23989f, t + h * 0.45258f);
-        path4.cubicTo(l + w * 0.30295f, t + h * 0.44575f, l + w * 0.36285f, t + h * 0.42242f, l + w * 0.42126f, t + h * 0.39758f);
-        path4.cubicTo(l + w * 0.47966f, t + h * 0.37275f, l + w * 0.53773f, t + h * 0.34608f, l + w * 0.59946f, t + h * 0.33175f);
-        path4.cubicTo(l + w * 0.69014f, t + h * 0.31075f, l + w * 0.78715f, t + h * 0.31808f, l + w * 0.87383f, t + h * 0.35225f);
-        path4.cubicTo(l + w * 0.91601f, t + h * 0.36888f, l + w * 0.95785f, t + h * 0.39279f, l + w * 0.99389f, t + h * 0.42162f);
-        path4.cubicTo(l + w * 0.99791f, t + h * 0.44716f, l + w * 1.00000f, t + h * 0.47334f, l + w * 1.00000f, t + h * 0.50000f);
-        path4.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path4, paint4);
+    public void setMonochromeLogo(boolean isMonochromeLogo) {
+        if (isMonochromeLogo == this.isMonochromeLogo) {
+            return;
+        }
+        this.isMonochromeLogo = isMonochromeLogo;
+        updateFacePaths();
+        invalidate();
     }
 
-    private void drawFace5(Canvas canvas, int t, int l, int w, int h) {
-        path5.moveTo(l + w * 0.43295f, t + h * 0.66235f);
-        path5.cubicTo(l + w * 0.28294f, t + h * 0.69005f, l + w * 0.02550f, t + h * 0.65810f, l + w * 0.02486f, t + h * 0.65612f);
-        path5.cubicTo(l + w * 0.00873f, t + h * 0.60700f, l + w * 0.00000f, t + h * 0.55452f, l + w * 0.00000f, t + h * 0.50000f);
-        path5.cubicTo(l + w * 0.00000f, t + h * 0.49856f, l + w * 0.00001f, t + h * 0.49712f, l + w * 0.00002f, t + h * 0.49568f);
-        path5.cubicTo(l + w * 0.02279f, t + h * 0.47763f, l + w * 0.04939f, t + h * 0.46153f, l + w * 0.07536f, t + h * 0.44901f);
-        path5.cubicTo(l + w * 0.13959f, t + h * 0.41785f, l + w * 0.21246f, t + h * 0.40485f, l + w * 0.28351f, t + h * 0.41185f);
-        path5.cubicTo(l + w * 0.35373f, t + h * 0.41885f, l + w * 0.42078f, t + h * 0.44485f, l + w * 0.48568f, t + h * 0.47285f);
-        path5.cubicTo(l + w * 0.54035f, t + h * 0.49644f, l + w * 0.59466f, t + h * 0.52192f, l + w * 0.65141f, t + h * 0.53953f);
-        path5.cubicTo(l + w * 0.65697f, t + h * 0.54125f, l + w * 0.59808f, t + h * 0.63185f, l + w * 0.43295f, t + h * 0.66235f);
-        path5.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path5, paint5);
+    public float getStrokeWidth() {
+        return strokeWidth;
     }
 
-    private void drawFace6(Canvas canvas, int t, int l, int w, int h) {
-        path6.moveTo(l + w * 0.98196f, t + h * 0.63356f);
-        path6.cubicTo(l + w * 0.97149f, t + h * 0.65126f, l + w * 0.87186f, t + h * 0.71085f, l + w * 0.73682f, t + h * 0.72106f);
-        path6.cubicTo(l + w * 0.55801f, t + h * 0.73457f, l + w * 0.34678f, t + h * 0.68052f, l + w * 0.41685f, t + h * 0.65301f);
-        path6.cubicTo(l + w * 0.52717f, t + h * 0.60968f, l + w * 0.62284f, t + h * 0.53185f, l + w * 0.73682f, t + h * 0.49935f);
-        path6.cubicTo(l + w * 0.82196f, t + h * 0.47496f, l + w * 0.91635f, t + h * 0.47881f, l + w * 0.99993f, t + h * 0.50829f);
-        path6.cubicTo(l + w * 0.99923f, t + h * 0.55161f, l + w * 0.99302f, t + h * 0.59359f, l + w * 0.98196f, t + h * 0.63356f);
-        path6.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path6, paint6);
+    public void setStrokeWidth(float strokeWidth) {
+        if (strokeWidth == this.strokeWidth) {
+            return;
+        }
+        this.strokeWidth = strokeWidth;
+        strokePaint.setStrokeWidth(strokeWidth);
+        updateFacePaths();
+        invalidate();
     }
 
-    private void drawFace7(Canvas canvas, int t, int l, int w, int h) {
-        path7.moveTo(l + w * 0.93357f, t + h * 0.74920f);
-        path7.cubicTo(l + w * 0.84724f, t + h * 0.89909f, l + w * 0.22106f, t + h * 0.93668f, l + w * 0.12958f, t + h * 0.83585f);
-        path7.cubicTo(l + w * 0.08302f, t + h * 0.78452f, l + w * 0.04697f, t + h * 0.72348f, l + w * 0.02486f, t + h * 0.65612f);
-        path7.cubicTo(l + w * 0.10175f, t + h * 0.61217f, l + w * 0.19177f, t + h * 0.59350f, l + w * 0.27829f, t + h * 0.60533f);
-        path7.cubicTo(l + w * 0.39027f, t + h * 0.62067f, l + w * 0.49060f, t + h * 0.68317f, l + w * 0.60109f, t + h * 0.70750f);
-        path7.cubicTo(l + w * 0.69027f, t + h * 0.72717f, l + w * 0.78478f, t + h * 0.72100f, l + w * 0.87064f, t + h * 0.69000f);
-        path7.cubicTo(l + w * 0.90945f, t + h * 0.67588f, l + w * 0.94793f, t + h * 0.65695f, l + w * 0.98196f, t + h * 0.63356f);
-        path7.cubicTo(l + w * 0.97066f, t + h * 0.67444f, l + w * 0.95429f, t + h * 0.71323f, l + w * 0.93357f, t + h * 0.74920f);
-        path7.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path7, paint7);
+    public int getStrokeColor() {
+        return strokeColor;
     }
 
-    private void drawFace8(Canvas canvas, int t, int l, int w, int h) {
-        path8.moveTo(l + w * 0.93429f, t + h * 0.74794f);
-        path8.cubicTo(l + w * 0.84814f, t + h * 0.89853f, l + w * 0.68592f, t + h * 1.00000f, l + w * 0.50000f, t + h * 1.00000f);
-        path8.cubicTo(l + w * 0.35311f, t + h * 1.00000f, l + w * 0.22101f, t + h * 0.93666f, l + w * 0.12953f, t + h * 0.83580f);
-        path8.cubicTo(l + w * 0.14471f, t + h * 0.84160f, l + w * 0.16169f, t + h * 0.84662f, l + w * 0.17725f, t + h * 0.85100f);
-        path8.cubicTo(l + w * 0.26428f, t + h * 0.87500f, l + w * 0.35795f, t + h * 0.87433f, l + w * 0.44448f, t + h * 0.84883f);
-        path8.cubicTo(l + w * 0.49988f, t + h * 0.83250f, l + w * 0.55196f, t + h * 0.80650f, l + w * 0.60637f, t + h * 0.78683f);
-        path8.cubicTo(l + w * 0.71020f, t + h * 0.74939f, l + w * 0.82447f, t + h * 0.73621f, l + w * 0.93429f, t + h * 0.74794f);
-        path8.lineTo(l + w * 0.93429f, t + h * 0.74794f);
-        path8.setFillType(Path.FillType.EVEN_ODD);
-        drawPath(canvas, path8, paint8);
+    public void setStrokeColor(int strokeColor) {
+        if (strokeColor == this.strokeColor) {
+            return;
+        }
+        this.strokeColor = strokeColor;
+        strokePaint.setColor(strokeColor);
+        invalidateCachedBitmap();
+        invalidate();
     }
 
-    public boolean isMonochromeLogo() {
-        return isMonochromeLogo;
+    public float getSizeFraction() {
+        return sizeFraction;
     }
 
-    public void setMonochromeLogo(boolean isMonochromeLogo) {
-        if (isMonochromeLogo == this.isMonochromeLogo) {
+    /**
+     * Sets the size of the logo as a fraction of the smaller side of the space offered by the parent. It is used when
+     * neither dimension has an exact size, e.g. with {@code wrap_content}. {@code 0} disables it, and values above
+     * {@code 1} are treated as {@code 1}.
+     */
+    public void setSizeFraction(float sizeFraction) {
+        sizeFraction = clampSizeFraction(sizeFraction);
+        if (sizeFraction == this.sizeFraction) {
             return;
         }
-        this.isMonochromeLogo = isMonochromeLogo;
-        invalidate();
+        this.sizeFraction = sizeFraction;
+        requestLayout();
     }
 
-    public float getStrokeWidth() {
-        return strokeWidth;
+    private static float clampSizeFraction(float sizeFraction) {
+        return Math.max(0, Math.min(sizeFraction, 1));
     }
 
-    public void setStrokeWidth(float strokeWidth) {
-        if (strokeWidth == this.strokeWidth) {
+    public boolean isUseBitmapCache() {
+        return useBitmapCache;
+    }
+
+    public void setUseBitmapCache(boolean useBitmapCache) {
+        if (useBitmapCache == this.useBitmapCache) {
             return;
         }
-        this.strokeWidth = strokeWidth;
+        this.useBitmapCache = useBitmapCache;
+        if (useBitmapCache) {
+            LogoBitmapCache.getInstance().register(getContext());
+        }
+        invalidateCachedBitmap();
         invalidate();
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.widget;
+
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.EditText;
+
+import io.realm.realmloginkit.util.FormValidator;
+
+/**
+ * Forwards the text of one {@link EditText} to one field of a {@link FormValidator}.
+ */
+public class ValidatingTextWatcher implements TextWatcher {
+    private final FormValidator validator;
+    private final int field;
+
+    public ValidatingTextWatcher(FormValidator validator, int field) {
+        this.validator = validator;
+        this.field = field;
+    }
+
+    /**
+     * Feeds the current text of {@code editText} to the validator and keeps it updated on every change.
+     */
+    public static void watch(EditText editText, FormValidator validator, int field) {
+        validator.onFieldChanged(field, editText.getText());
+        editText.addTextChangedListener(new ValidatingTextWatcher(validator, field));
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        validator.onFieldChanged(field, s);
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+    }
+}
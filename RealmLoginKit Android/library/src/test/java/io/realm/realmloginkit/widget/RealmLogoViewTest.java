@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 Realm Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.realm.realmloginkit.widget;
+
+import android.content.Context;
+import android.support.v7.view.ContextThemeWrapper;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.RelativeLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import io.realm.realmloginkit.BuildConfig;
+import io.realm.realmloginkit.R;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class RealmLogoViewTest {
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+
+    // Counts the measure and layout passes the logo goes through.
+    public static class CountingLogoView extends RealmLogoView {
+        int measureCount;
+        int layoutCount;
+
+        public CountingLogoView(Context context) {
+            super(context);
+        }
+
+        public CountingLogoView(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            layoutCount++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+    }
+
+    private Context context;
+    private float density;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(RuntimeEnvironment.application,
+                android.support.v7.appcompat.R.style.Theme_AppCompat_Light_NoActionBar);
+        density = context.getResources().getDisplayMetrics().density;
+    }
+
+    @Test
+    public void loginLayout_logoIsLaidOutOnceAtItsFinalSize() {
+        final LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(context);
+        final CountingLogoView[] logo = new CountingLogoView[1];
+        inflater.setFactory2(new LayoutInflater.Factory2() {
+            @Override
+            public View onCreateView(View parent, String name, Context context, AttributeSet attrs) {
+                if (RealmLogoView.class.getName().equals(name)) {
+                    logo[0] = new CountingLogoView(context, attrs);
+                    return logo[0];
+                }
+                return null;
+            }
+
+            @Override
+            public View onCreateView(String name, Context context, AttributeSet attrs) {
+                return onCreateView(null, name, context, attrs);
+            }
+        });
+        final View root = inflater.inflate(R.layout.activity_login, null);
+        assertNotNull(logo[0]);
+
+        layOut(root);
+
+        // RelativeLayout measures its children twice per pass, but there is only one layout pass.
+        assertEquals(1, logo[0].layoutCount);
+        assertTrue(logo[0].measureCount <= 2);
+        assertFalse(logo[0].isLayoutRequested());
+        assertEquals(Math.round(100 * density), logo[0].getWidth());
+        assertEquals(logo[0].getWidth(), logo[0].getHeight());
+    }
+
+    @Test
+    public void wrapContentWithSizeFraction_finalSizeInFirstPass() {
+        final RelativeLayout parent = new RelativeLayout(context);
+        final CountingLogoView logo = new CountingLogoView(context);
+        logo.setSizeFraction(0.7f);
+        final RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.addRule(RelativeLayout.CENTER_IN_PARENT);
+        parent.addView(logo, params);
+
+        layOut(parent);
+
+        assertEquals(1, logo.layoutCount);
+        assertFalse(logo.isLayoutRequested());
+        assertEquals(Math.round(SCREEN_WIDTH * 0.7f), logo.getWidth());
+        assertEquals(logo.getWidth(), logo.getHeight());
+
+        // Laying out again with the same size does not change the logo.
+        final int width = logo.getWidth();
+        layOut(parent);
+        assertEquals(width, logo.getWidth());
+    }
+
+    @Test
+    public void atMost_minimumSizeDoesNotExceedBound() {
+        final RealmLogoView logo = new RealmLogoView(context);
+        logo.setMinimumWidth(300);
+        logo.setMinimumHeight(300);
+
+        logo.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.AT_MOST),
+                View.MeasureSpec.makeMeasureSpec(250, View.MeasureSpec.AT_MOST));
+
+        assertEquals(200, logo.getMeasuredWidth());
+        assertEquals(200, logo.getMeasuredHeight());
+    }
+
+    @Test
+    public void exactly_nonSquareSpecMeasuresSquare() {
+        final RealmLogoView logo = new RealmLogoView(context);
+
+        logo.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY));
+
+        assertEquals(100, logo.getMeasuredWidth());
+        assertEquals(100, logo.getMeasuredHeight());
+    }
+
+    @Test
+    public void unspecified_usesDefaultSize() {
+        final RealmLogoView logo = new RealmLogoView(context);
+
+        logo.measure(View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+
+        assertEquals(Math.round(100 * density), logo.getMeasuredWidth());
+        assertEquals(logo.getMeasuredWidth(), logo.getMeasuredHeight());
+    }
+
+    @Test
+    public void sizeFractionAboveOne_isClamped() {
+        final RealmLogoView logo = new RealmLogoView(context);
+        logo.setSizeFraction(1.5f);
+
+        logo.measure(View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.AT_MOST),
+                View.MeasureSpec.makeMeasureSpec(600, View.MeasureSpec.AT_MOST));
+
+        assertEquals(400, logo.getMeasuredWidth());
+        assertEquals(400, logo.getMeasuredHeight());
+    }
+
+    private static void layOut(View root) {
+        root.measure(View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
+}